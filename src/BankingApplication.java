@@ -3,17 +3,38 @@ import model.account.*;
 import model.transaction.*;
 import model.loan.*;
 import repository.*;
+import repository.storage.*;
 import service.*;
 import util.*;
 import exception.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.time.LocalDate;
 
 public class BankingApplication {
+    private static final Path WRITE_AHEAD_LOG = Path.of("smartbank.wal");
+    private static final Path SNAPSHOT_DIRECTORY = Path.of("snapshots");
+    private static final FsyncPolicy FSYNC_POLICY =
+            FsyncPolicy.parse(System.getProperty("smartbank.wal.fsync"), FsyncPolicy.GROUP_COMMIT);
+    private static final int GROUP_COMMIT_BATCH_RECORDS =
+            Math.max(1, Integer.getInteger("smartbank.wal.groupCommitBatch", 512));
+    private static final long GROUP_COMMIT_MAX_WAIT_MILLIS =
+            Math.max(1, Long.getLong("smartbank.wal.groupCommitMaxWaitMillis", 2));
+    private static final long CHECKPOINT_INTERVAL_MINUTES = 10;
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     private static UserRepository userRepository;
     private static AccountRepository accountRepository;
     private static TransactionRepository transactionRepository;
     private static LoanRepository loanRepository;
+    private static LedgerRepository ledgerRepository;
+    private static WriteAheadLog writeAheadLog;
+    private static SnapshotStore snapshotStore;
+    private static RepositoryRecovery recovery;
     private static UserService userService;
     private static AccountService accountService;
     private static TransactionService transactionService;
@@ -31,14 +52,66 @@ public class BankingApplication {
         accountRepository = new AccountRepository();
         transactionRepository = new TransactionRepository();
         loanRepository = new LoanRepository();
+        ledgerRepository = new LedgerRepository();
+        accountRepository.setLedgerRepository(ledgerRepository);
+        openWriteAheadLog();
         userService = new UserService(userRepository);
         accountService = new AccountService(accountRepository, transactionRepository);
+        Runtime.getRuntime().addShutdownHook(new Thread(accountService::close));
         transactionService = new TransactionService(transactionRepository);
-        loanService = new LoanService(loanRepository, accountRepository);
+        loanService = new LoanService(loanRepository, accountService);
         scanner = new Scanner(System.in);
         System.out.println("SmartBank System initialized!");
     }
 
+    private static void openWriteAheadLog() {
+        try {
+            writeAheadLog = new WriteAheadLog(WRITE_AHEAD_LOG, FSYNC_POLICY, GROUP_COMMIT_BATCH_RECORDS,
+                    GROUP_COMMIT_MAX_WAIT_MILLIS);
+            snapshotStore = new SnapshotStore(SNAPSHOT_DIRECTORY);
+            recovery = new RepositoryRecovery(userRepository, accountRepository, transactionRepository,
+                    loanRepository, ledgerRepository);
+            long replayed = recovery.recover(snapshotStore, writeAheadLog);
+            System.out.println("Recovered " + replayed + " records from " + WRITE_AHEAD_LOG + " after latest snapshot"
+                    + " (fsync: " + FSYNC_POLICY + ")");
+            int adjusted = ledgerRepository.reconcile(accountRepository.findAll()).size();
+            if (adjusted > 0) {
+                System.out.println("Ledger reconciled for " + adjusted + " account(s)");
+            }
+            scheduleCheckpoints();
+            Runtime.getRuntime().addShutdownHook(new Thread(BankingApplication::closeWriteAheadLog));
+        } catch (IOException e) {
+            System.out.println("Persistence unavailable, running in memory only: " + e.getMessage());
+        }
+    }
+
+    private static void scheduleCheckpoints() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(BankingApplication::checkpoint,
+                CHECKPOINT_INTERVAL_MINUTES, CHECKPOINT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private static void checkpoint() {
+        try {
+            recovery.checkpoint(snapshotStore, writeAheadLog);
+        } catch (IOException e) {
+            System.out.println("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    private static void closeWriteAheadLog() {
+        checkpoint();
+        try {
+            writeAheadLog.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close write-ahead log: " + e.getMessage());
+        }
+    }
+
     private static void mainMenu() {
         while (true) {
             clearScreen();
@@ -154,7 +227,7 @@ public class BankingApplication {
             return;
         }
         try {
-            Customer newCustomer = new Customer("CUST-" + System.currentTimeMillis(), name, email, password, phone, address);
+            Customer newCustomer = new Customer(TimeOrderedIdGenerator.shared().nextId("CUST-"), name, email, password, phone, address);
             userRepository.save(newCustomer);
             System.out.println("Registration successful!");
             System.out.println("Your ID: " + newCustomer.getUserId());
@@ -229,23 +302,23 @@ public class BankingApplication {
             switch (choice) {
                 case 1 -> {
                     System.out.print("Initial deposit: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     Account account = accountService.createSavingsAccount(customer, amount, 0.04);
                     System.out.println("[OK] Savings Account created!");
                     System.out.println("Account Number: " + account.getAccountNumber());
                 }
                 case 2 -> {
                     System.out.print("Initial deposit: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Overdraft limit: EUR ");
-                    double overdraft = getDoubleInput();
+                    long overdraft = getAmountInput();
                     Account account = accountService.createCurrentAccount(customer, amount, overdraft);
                     System.out.println("[OK] Current Account created!");
                     System.out.println("Account Number: " + account.getAccountNumber());
                 }
                 case 3 -> {
                     System.out.print("Deposit amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     Account account = accountService.createFixedDepositAccount(customer, amount, 0.07, tenure);
@@ -254,9 +327,9 @@ public class BankingApplication {
                 }
                 case 4 -> {
                     System.out.print("Initial balance: EUR ");
-                    double initial = getDoubleInput();
+                    long initial = getAmountInput();
                     System.out.print("Monthly deposit: EUR ");
-                    double monthly = getDoubleInput();
+                    long monthly = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     Account account = accountService.createRecurringDepositAccount(customer, initial, monthly, 0.06, tenure);
@@ -286,7 +359,7 @@ public class BankingApplication {
             Account acc = accounts.get(i);
             System.out.printf("%d. %s\n", i + 1, acc.getAccountType());
             System.out.printf("   Number: %s\n", acc.getAccountNumber());
-            System.out.printf("   Balance: EUR %.2f\n", acc.getBalance());
+            System.out.printf("   Balance: EUR %s\n", Money.format(acc.getBalance()));
             System.out.printf("   Status: %s\n\n", acc.isActive() ? "Active" : "Inactive");
         }
         pressEnter();
@@ -303,7 +376,7 @@ public class BankingApplication {
         }
         System.out.println("SELECT ACCOUNT:");
         for (int i = 0; i < accounts.size(); i++) {
-            System.out.printf("%d. %s - EUR %.2f\n", i + 1, accounts.get(i).getAccountType(), accounts.get(i).getBalance());
+            System.out.printf("%d. %s - EUR %s\n", i + 1, accounts.get(i).getAccountType(), Money.format(accounts.get(i).getBalance()));
         }
         System.out.print("Select: ");
         int accIdx = getIntInput() - 1;
@@ -313,7 +386,7 @@ public class BankingApplication {
             return;
         }
         System.out.print("Enter amount: EUR ");
-        double amount = getDoubleInput();
+        long amount = getAmountInput();
         if (amount <= 0) {
             System.out.println("Invalid amount!");
             pressEnter();
@@ -321,12 +394,12 @@ public class BankingApplication {
         }
         try {
             Account account = accounts.get(accIdx);
-            double balanceBefore = account.getBalance();
+            long balanceBefore = account.getBalance();
             accountService.deposit(account.getAccountNumber(), amount);
             System.out.println("[OK] Deposit successful!");
-            System.out.println("Amount: EUR " + String.format("%.2f", amount));
-            System.out.println("Before: EUR " + String.format("%.2f", balanceBefore));
-            System.out.println("After: EUR " + String.format("%.2f", account.getBalance()));
+            System.out.println("Amount: EUR " + Money.format(amount));
+            System.out.println("Before: EUR " + Money.format(balanceBefore));
+            System.out.println("After: EUR " + Money.format(account.getBalance()));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -344,7 +417,7 @@ public class BankingApplication {
         }
         System.out.println("SELECT ACCOUNT:");
         for (int i = 0; i < accounts.size(); i++) {
-            System.out.printf("%d. %s - EUR %.2f\n", i + 1, accounts.get(i).getAccountType(), accounts.get(i).getBalance());
+            System.out.printf("%d. %s - EUR %s\n", i + 1, accounts.get(i).getAccountType(), Money.format(accounts.get(i).getBalance()));
         }
         System.out.print("Select: ");
         int accIdx = getIntInput() - 1;
@@ -354,7 +427,7 @@ public class BankingApplication {
             return;
         }
         System.out.print("Enter amount: EUR ");
-        double amount = getDoubleInput();
+        long amount = getAmountInput();
         if (amount <= 0) {
             System.out.println("Invalid amount!");
             pressEnter();
@@ -362,12 +435,12 @@ public class BankingApplication {
         }
         try {
             Account account = accounts.get(accIdx);
-            double balanceBefore = account.getBalance();
+            long balanceBefore = account.getBalance();
             accountService.withdraw(account.getAccountNumber(), amount);
             System.out.println("[OK] Withdrawal successful!");
-            System.out.println("Amount: EUR " + String.format("%.2f", amount));
-            System.out.println("Before: EUR " + String.format("%.2f", balanceBefore));
-            System.out.println("After: EUR " + String.format("%.2f", account.getBalance()));
+            System.out.println("Amount: EUR " + Money.format(amount));
+            System.out.println("Before: EUR " + Money.format(balanceBefore));
+            System.out.println("After: EUR " + Money.format(account.getBalance()));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -385,7 +458,7 @@ public class BankingApplication {
         }
         System.out.println("FROM ACCOUNT:");
         for (int i = 0; i < accounts.size(); i++) {
-            System.out.printf("%d. %s - EUR %.2f\n", i + 1, accounts.get(i).getAccountType(), accounts.get(i).getBalance());
+            System.out.printf("%d. %s - EUR %s\n", i + 1, accounts.get(i).getAccountType(), Money.format(accounts.get(i).getBalance()));
         }
         System.out.print("From: ");
         int fromIdx = getIntInput() - 1;
@@ -397,7 +470,7 @@ public class BankingApplication {
         System.out.print("To account number: ");
         String toAccNumber = scanner.nextLine().trim();
         System.out.print("Amount: EUR ");
-        double amount = getDoubleInput();
+        long amount = getAmountInput();
         if (amount <= 0) {
             System.out.println("Invalid amount!");
             pressEnter();
@@ -432,18 +505,35 @@ public class BankingApplication {
             pressEnter();
             return;
         }
-        var transactions = transactionService.getTransactionsByAccount(accounts.get(accIdx));
-        if (transactions.isEmpty()) {
+        Account account = accounts.get(accIdx);
+        TransactionPage page = transactionService.getTransactionPage(account, null, HISTORY_PAGE_SIZE,
+                PageDirection.NEWEST_FIRST);
+        if (page.isEmpty()) {
             System.out.println("No transactions found!");
             pressEnter();
             return;
         }
-        System.out.println("TRANSACTION HISTORY");
-        System.out.println("=".repeat(80));
-        for (Transaction txn : transactions) {
-            System.out.printf("%-12s | EUR %10.2f | %s\n", txn.type(), txn.amount(), txn.description());
+        int pageNumber = 1;
+        while (true) {
+            clearScreen();
+            printBanner();
+            System.out.printf("TRANSACTION HISTORY - %s (page %d, newest first)\n", account.getAccountNumber(), pageNumber);
+            System.out.println("=".repeat(80));
+            for (Transaction txn : page.transactions()) {
+                System.out.printf("%-12s | EUR %10s | %s\n", txn.type(), Money.format(txn.amount()), txn.description());
+            }
+            if (!page.hasMore()) {
+                pressEnter();
+                return;
+            }
+            System.out.print("\nN = next page, any other key to return: ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("N")) {
+                return;
+            }
+            page = transactionService.getTransactionPage(account, page.nextCursor(), HISTORY_PAGE_SIZE,
+                    PageDirection.NEWEST_FIRST);
+            pageNumber++;
         }
-        pressEnter();
     }
 
     private static void applyForLoan(Customer customer) {
@@ -462,47 +552,47 @@ public class BankingApplication {
             switch (loanType) {
                 case 1 -> {
                     System.out.print("Amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     Loan loan = loanService.createPersonalLoan(customer, amount, tenure);
                     System.out.println("[OK] Personal Loan created!");
                     System.out.println("ID: " + loan.getLoanId());
-                    System.out.println("EMI: EUR " + String.format("%.2f", loan.getEmiAmount()));
+                    System.out.println("EMI: EUR " + Money.format(loan.getEmiAmount()));
                 }
                 case 2 -> {
                     System.out.print("Amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     System.out.print("Property address: ");
                     String address = scanner.nextLine().trim();
                     System.out.print("Property value: EUR ");
-                    double propValue = getDoubleInput();
+                    long propValue = getAmountInput();
                     Loan loan = loanService.createHomeLoan(customer, amount, tenure, address, propValue);
                     System.out.println("[OK] Home Loan created!");
                     System.out.println("ID: " + loan.getLoanId());
-                    System.out.println("EMI: EUR " + String.format("%.2f", loan.getEmiAmount()));
+                    System.out.println("EMI: EUR " + Money.format(loan.getEmiAmount()));
                 }
                 case 3 -> {
                     System.out.print("Amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     System.out.print("Vehicle model: ");
                     String vehicle = scanner.nextLine().trim();
                     System.out.print("Vehicle value: EUR ");
-                    double vehicleValue = getDoubleInput();
+                    long vehicleValue = getAmountInput();
                     System.out.print("Registration year: ");
                     int year = getIntInput();
                     Loan loan = loanService.createAutoLoan(customer, amount, tenure, vehicle, vehicleValue, year);
                     System.out.println("[OK] Auto Loan created!");
                     System.out.println("ID: " + loan.getLoanId());
-                    System.out.println("EMI: EUR " + String.format("%.2f", loan.getEmiAmount()));
+                    System.out.println("EMI: EUR " + Money.format(loan.getEmiAmount()));
                 }
                 case 4 -> {
                     System.out.print("Amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     System.out.print("Institution name: ");
@@ -514,11 +604,11 @@ public class BankingApplication {
                     Loan loan = loanService.createEducationLoan(customer, amount, tenure, institution, course, duration);
                     System.out.println("[OK] Education Loan created!");
                     System.out.println("ID: " + loan.getLoanId());
-                    System.out.println("EMI: EUR " + String.format("%.2f", loan.getEmiAmount()));
+                    System.out.println("EMI: EUR " + Money.format(loan.getEmiAmount()));
                 }
                 case 5 -> {
                     System.out.print("Amount: EUR ");
-                    double amount = getDoubleInput();
+                    long amount = getAmountInput();
                     System.out.print("Tenure (months): ");
                     int tenure = getIntInput();
                     System.out.print("Business name: ");
@@ -526,13 +616,13 @@ public class BankingApplication {
                     System.out.print("Business type: ");
                     String type = scanner.nextLine().trim();
                     System.out.print("Annual turnover: EUR ");
-                    double turnover = getDoubleInput();
+                    long turnover = getAmountInput();
                     System.out.print("Collateral value: EUR ");
-                    double collateral = getDoubleInput();
+                    long collateral = getAmountInput();
                     Loan loan = loanService.createBusinessLoan(customer, amount, tenure, business, type, turnover, collateral);
                     System.out.println("[OK] Business Loan created!");
                     System.out.println("ID: " + loan.getLoanId());
-                    System.out.println("EMI: EUR " + String.format("%.2f", loan.getEmiAmount()));
+                    System.out.println("EMI: EUR " + Money.format(loan.getEmiAmount()));
                 }
                 default -> System.out.println("Invalid option!");
             }
@@ -555,8 +645,8 @@ public class BankingApplication {
         System.out.println("=".repeat(80));
         for (Loan loan : loans) {
             System.out.printf("ID: %s | Type: %s\n", loan.getLoanId(), loan.getLoanType());
-            System.out.printf("Amount: EUR %.2f | Status: %s\n", loan.getPrincipal(), loan.getStatus());
-            System.out.printf("EMI: EUR %.2f | Remaining: EUR %.2f\n\n", loan.getEmiAmount(), loan.getRemainingBalance());
+            System.out.printf("Amount: EUR %s | Status: %s\n", Money.format(loan.getPrincipal()), loan.getStatus());
+            System.out.printf("EMI: EUR %s | Remaining: EUR %s\n\n", Money.format(loan.getEmiAmount()), Money.format(loan.getRemainingBalance()));
         }
         pressEnter();
     }
@@ -577,7 +667,7 @@ public class BankingApplication {
         for (int i = 0; i < loans.size(); i++) {
             if (loans.get(i).getStatus() == LoanStatus.PENDING) {
                 idx++;
-                System.out.printf("%d. %s - EUR %.2f\n", idx, loans.get(i).getLoanId(), loans.get(i).getPrincipal());
+                System.out.printf("%d. %s - EUR %s\n", idx, loans.get(i).getLoanId(), Money.format(loans.get(i).getPrincipal()));
             }
         }
         System.out.print("Select loan to approve: ");
@@ -607,7 +697,7 @@ public class BankingApplication {
         for (int i = 0; i < loans.size(); i++) {
             if (loans.get(i).getStatus() == LoanStatus.APPROVED) {
                 idx++;
-                System.out.printf("%d. %s - EUR %.2f\n", idx, loans.get(i).getLoanId(), loans.get(i).getPrincipal());
+                System.out.printf("%d. %s - EUR %s\n", idx, loans.get(i).getLoanId(), Money.format(loans.get(i).getPrincipal()));
             }
         }
         System.out.print("Select loan: ");
@@ -643,7 +733,7 @@ public class BankingApplication {
 
         System.out.println("YOUR ACTIVE LOANS:");
         for (int i = 0; i < active.size(); i++) {
-            System.out.printf("%d. %s - EMI: EUR %.2f\n", i + 1, active.get(i).getLoanId(), active.get(i).getEmiAmount());
+            System.out.printf("%d. %s - EMI: EUR %s\n", i + 1, active.get(i).getLoanId(), Money.format(active.get(i).getEmiAmount()));
         }
 
         System.out.print("Select loan: ");
@@ -659,14 +749,14 @@ public class BankingApplication {
 
         System.out.println("SELECT ACCOUNT TO PAY FROM:");
         for (int i = 0; i < accounts.size(); i++) {
-            System.out.printf("%d. %s (%s) - EUR %.2f\n", i + 1, accounts.get(i).getAccountNumber(), accounts.get(i).getAccountType(), accounts.get(i).getBalance());
+            System.out.printf("%d. %s (%s) - EUR %s\n", i + 1, accounts.get(i).getAccountNumber(), accounts.get(i).getAccountType(), Money.format(accounts.get(i).getBalance()));
         }
         System.out.print("Select account: ");
         int accIdx = getIntInput() - 1;
         Account selectedAccount = accounts.get(accIdx);
 
-        double emi = selectedLoan.getEmiAmount();
-        System.out.printf("The EMI/payment is EUR %.2f. Proceed? (Y/N): ", emi);
+        long emi = selectedLoan.getEmiAmount();
+        System.out.printf("The EMI/payment is EUR %s. Proceed? (Y/N): ", Money.format(emi));
         String proceed = scanner.nextLine().trim();
         if (!proceed.equalsIgnoreCase("Y")) {
             pressEnter();
@@ -680,9 +770,7 @@ public class BankingApplication {
         }
 
         try {
-            selectedAccount.withdraw(emi);
-            accountService.updateAccount(selectedAccount);
-            loanService.makePayment(selectedLoan.getLoanId(), emi);
+            loanService.makePayment(selectedLoan.getLoanId(), selectedAccount.getAccountNumber(), emi);
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -705,9 +793,9 @@ public class BankingApplication {
         for (Account acc : accounts) {
             System.out.printf("Account: %s (%s)\n", acc.getAccountNumber(), acc.getAccountType());
             System.out.printf("Opening Date: %s\n", acc.getOpeningDate());
-            System.out.printf("Balance: EUR %.2f\n", acc.getBalance());
+            System.out.printf("Balance: EUR %s\n", Money.format(acc.getBalance()));
             System.out.printf("Status: %s\n", acc.isActive() ? "Active" : "Inactive");
-            System.out.printf("Transactions: %d\n\n", acc.getTransactions().size());
+            System.out.printf("Transactions: %d\n\n", transactionRepository.countByAccountNumber(acc.getAccountNumber()));
         }
         pressEnter();
     }
@@ -744,9 +832,9 @@ public class BankingApplication {
         }
     }
 
-    private static double getDoubleInput() {
+    private static long getAmountInput() {
         try {
-            return Double.parseDouble(scanner.nextLine().trim());
+            return Money.parse(scanner.nextLine());
         } catch (Exception e) {
             return -1;
         }
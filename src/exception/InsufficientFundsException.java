@@ -1,10 +1,12 @@
 package exception;
 
+import util.Money;
+
 public class InsufficientFundsException extends Exception {
     
     private final String accountNumber;
-    private final double requiredAmount;
-    private final double currentBalance;
+    private final long requiredAmount;
+    private final long currentBalance;
 
     public InsufficientFundsException(String message) {
         super(message);
@@ -13,10 +15,10 @@ public class InsufficientFundsException extends Exception {
         this.currentBalance = 0;
     }
 
-    public InsufficientFundsException(String accountNumber, double requiredAmount, double currentBalance) {
+    public InsufficientFundsException(String accountNumber, long requiredAmount, long currentBalance) {
         super(String.format(
-            "Insufficient funds in account %s. Required: Euro %.2f, Available: Euro %.2f",
-            accountNumber, requiredAmount, currentBalance
+            "Insufficient funds in account %s. Required: Euro %s, Available: Euro %s",
+            accountNumber, Money.format(requiredAmount), Money.format(currentBalance)
         ));
         this.accountNumber = accountNumber;
         this.requiredAmount = requiredAmount;
@@ -34,22 +36,22 @@ public class InsufficientFundsException extends Exception {
         return accountNumber;
     }
     
-    public double getRequiredAmount() {
+    public long getRequiredAmount() {
         return requiredAmount;
     }
     
-    public double getCurrentBalance() {
+    public long getCurrentBalance() {
         return currentBalance;
     }
     
-    public double getShortfall() {
+    public long getShortfall() {
         return requiredAmount - currentBalance;
     }
 
     public String getDetailedMessage() {
         return String.format(
-            "Account: %s | Required: Euro %.2f | Available: Euro %.2f | Shortfall: Euro %.2f",
-            accountNumber, requiredAmount, currentBalance, getShortfall()
+            "Account: %s | Required: Euro %s | Available: Euro %s | Shortfall: Euro %s",
+            accountNumber, Money.format(requiredAmount), Money.format(currentBalance), Money.format(getShortfall())
         );
     }
 }
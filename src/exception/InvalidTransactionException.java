@@ -1,10 +1,12 @@
 package exception;
 
+import util.Money;
+
 public class InvalidTransactionException extends RuntimeException {
     
     private final String transactionId;
     private final String reason;
-    private final double amount;
+    private final long amount;
 
     public InvalidTransactionException(String message) {
         super(message);
@@ -23,10 +25,10 @@ public class InvalidTransactionException extends RuntimeException {
         this.amount = 0;
     }
 
-    public InvalidTransactionException(String transactionId, String reason, double amount) {
+    public InvalidTransactionException(String transactionId, String reason, long amount) {
         super(String.format(
-            "Invalid transaction %s for amount Euro %.2f. Reason: %s",
-            transactionId, amount, reason
+            "Invalid transaction %s for amount Euro %s. Reason: %s",
+            transactionId, Money.format(amount), reason
         ));
         this.transactionId = transactionId;
         this.reason = reason;
@@ -42,10 +44,10 @@ public class InvalidTransactionException extends RuntimeException {
     }
     
     // Constructor with full details and cause
-    public InvalidTransactionException(String transactionId, String reason, double amount, Throwable cause) {
+    public InvalidTransactionException(String transactionId, String reason, long amount, Throwable cause) {
         super(String.format(
-            "Invalid transaction %s for amount Euro %.2f. Reason: %s",
-            transactionId, amount, reason
+            "Invalid transaction %s for amount Euro %s. Reason: %s",
+            transactionId, Money.format(amount), reason
         ), cause);
         this.transactionId = transactionId;
         this.reason = reason;
@@ -60,15 +62,15 @@ public class InvalidTransactionException extends RuntimeException {
         return reason;
     }
     
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
     public String getDetailedMessage() {
         return String.format(
-            "Transaction ID: %s | Amount: Euro %.2f | Reason: %s",
+            "Transaction ID: %s | Amount: Euro %s | Reason: %s",
             transactionId != null ? transactionId : "Unknown",
-            amount,
+            Money.format(amount),
             reason != null ? reason : "Unknown"
         );
     }
@@ -1,10 +1,12 @@
 package exception;
 
+import util.Money;
+
 public class LoanApprovalException extends Exception {
     
     private final String loanId;
     private final String reason;
-    private final double requestedAmount;
+    private final long requestedAmount;
 
     public LoanApprovalException(String message) {
         super(message);
@@ -23,10 +25,10 @@ public class LoanApprovalException extends Exception {
         this.requestedAmount = 0;
     }
 
-    public LoanApprovalException(String loanId, String reason, double requestedAmount) {
+    public LoanApprovalException(String loanId, String reason, long requestedAmount) {
         super(String.format(
-            "Loan approval failed for loan %s requesting Euro %.2f. Reason: %s",
-            loanId, requestedAmount, reason
+            "Loan approval failed for loan %s requesting Euro %s. Reason: %s",
+            loanId, Money.format(requestedAmount), reason
         ));
         this.loanId = loanId;
         this.reason = reason;
@@ -42,10 +44,10 @@ public class LoanApprovalException extends Exception {
     }
     
     // Constructor with full details and cause
-    public LoanApprovalException(String loanId, String reason, double requestedAmount, Throwable cause) {
+    public LoanApprovalException(String loanId, String reason, long requestedAmount, Throwable cause) {
         super(String.format(
-            "Loan approval failed for loan %s requesting Euro %.2f. Reason: %s",
-            loanId, requestedAmount, reason
+            "Loan approval failed for loan %s requesting Euro %s. Reason: %s",
+            loanId, Money.format(requestedAmount), reason
         ), cause);
         this.loanId = loanId;
         this.reason = reason;
@@ -60,15 +62,15 @@ public class LoanApprovalException extends Exception {
         return reason;
     }
     
-    public double getRequestedAmount() {
+    public long getRequestedAmount() {
         return requestedAmount;
     }
 
     public String getDetailedMessage() {
         return String.format(
-            "Loan ID: %s | Requested Amount: Euro %.2f | Reason: %s",
+            "Loan ID: %s | Requested Amount: Euro %s | Reason: %s",
             loanId != null ? loanId : "Unknown",
-            requestedAmount,
+            Money.format(requestedAmount),
             reason != null ? reason : "Unknown"
         );
     }
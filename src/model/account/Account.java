@@ -1,51 +1,188 @@
 package model.account;
 
+import exception.InsufficientFundsException;
+import exception.InvalidTransactionException;
 import model.user.Customer;
+import util.Money;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Account {
 
     protected String accountNumber;
     protected Customer customer;
-    protected double balance;
+    protected volatile long balance;
     protected LocalDate openingDate;
     protected boolean isActive;
     protected String accountType;
-    protected List<String> transactions;
+    protected final ActivityLog activityLog;
+    private AccountActivityListener activityListener;
+    private final AtomicLong heldAmount = new AtomicLong();
+    private final Map<String, Hold> activeHolds = new ConcurrentHashMap<>();
 
-    public Account(String accountNumber, Customer customer, double balance) {
+    public Account(String accountNumber, Customer customer, long balance) {
         this.accountNumber = accountNumber;
         this.customer = customer;
         this.balance = balance;
         this.openingDate = LocalDate.now();
         this.isActive = true;
-        this.transactions = new ArrayList<>();
+        this.activityLog = new ActivityLog();
     }
 
-    public void deposit(double amount) {
+    public void deposit(long amount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        this.balance += amount;
+        this.balance = Money.add(this.balance, amount);
     }
 
-    public void withdraw(double amount) throws Exception {
+    public void withdraw(long amount) throws Exception {
         if (amount <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        if (amount > this.balance) {
-            throw new Exception("Insufficient funds! Current balance: " + this.balance);
+        if (!tryDebit(amount)) {
+            throw new Exception("Insufficient funds! Available balance: " + Money.format(getAvailableBalance()));
         }
-        this.balance -= amount;
     }
 
-    public abstract void calculateInterest();
+    // Debits are serialised by the account lock, but holds are placed without it. A debit
+    // writes the balance and then re-reads holds while placeHold does the opposite, so of a racing
+    // debit and hold at least one sees the other and backs out if together they overdraw.
+    protected boolean tryDebit(long amount) {
+        long limit = getOverdraftAllowance();
+        if (amount > this.balance - heldAmount.get() + limit) {
+            return false;
+        }
+        this.balance = Money.subtract(this.balance, amount);
+        if (this.balance - heldAmount.get() + limit < 0) {
+            this.balance = Money.add(this.balance, amount);
+            return false;
+        }
+        return true;
+    }
+
+    // How far below zero the available balance may go
+    protected long getOverdraftAllowance() {
+        return 0;
+    }
+
+    // A hold is a debit in waiting, so accounts that refuse withdrawals refuse holds as well
+    public boolean supportsHolds() {
+        return true;
+    }
+
+    public Hold placeHold(String holdId, long amount, long expiresAtMillis) throws InsufficientFundsException {
+        requireHoldSupport();
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Hold amount must be positive");
+        }
+        long limit = getOverdraftAllowance();
+        long held;
+        do {
+            held = heldAmount.get();
+            if (amount > this.balance - held + limit) {
+                throw new InsufficientFundsException(accountNumber, amount, this.balance - held + limit);
+            }
+        } while (!heldAmount.compareAndSet(held, held + amount));
+        if (this.balance - (held + amount) + limit < 0) {
+            heldAmount.addAndGet(-amount);
+            throw new InsufficientFundsException(accountNumber, amount, this.balance - heldAmount.get() + limit);
+        }
+        Hold hold = new Hold(holdId, accountNumber, amount, System.currentTimeMillis(), expiresAtMillis);
+        activeHolds.put(holdId, hold);
+        return hold;
+    }
+
+    // Debits the captured amount and frees the whole hold, so a partial capture releases the rest.
+    // Changes the balance, so callers serialise it like any other debit.
+    public Hold captureHold(String holdId, long amount) {
+        requireHoldSupport();
+        Hold hold = activeHolds.get(holdId);
+        if (hold == null) {
+            throw new IllegalStateException("No active hold " + holdId + " on account " + accountNumber);
+        }
+        if (amount <= 0 || amount > hold.getAmount()) {
+            throw new IllegalArgumentException("Capture amount must be positive and no more than the held "
+                    + Money.format(hold.getAmount()));
+        }
+        if (!hold.settle(HoldStatus.CAPTURED)) {
+            throw new IllegalStateException("Hold " + holdId + " is already " + hold.getStatus());
+        }
+        this.balance = Money.subtract(this.balance, amount);
+        drop(hold);
+        return hold;
+    }
+
+    // Undoes a capture whose posting could not be persisted. The caller restores the balance first,
+    // so re-reserving the amount cannot overdraw the account.
+    public void reinstateHold(Hold hold) {
+        if (!hold.reopen()) {
+            throw new IllegalStateException("Hold " + hold.getHoldId() + " is " + hold.getStatus() + ", not captured");
+        }
+        heldAmount.addAndGet(hold.getAmount());
+        activeHolds.put(hold.getHoldId(), hold);
+    }
+
+    public boolean releaseHold(String holdId) {
+        Hold hold = activeHolds.get(holdId);
+        if (hold == null || !hold.settle(HoldStatus.RELEASED)) {
+            return false;
+        }
+        drop(hold);
+        return true;
+    }
+
+    public boolean expireHold(String holdId, long nowMillis) {
+        Hold hold = activeHolds.get(holdId);
+        if (hold == null || hold.getExpiresAtMillis() > nowMillis || !hold.settle(HoldStatus.EXPIRED)) {
+            return false;
+        }
+        drop(hold);
+        return true;
+    }
+
+    private void requireHoldSupport() {
+        if (!supportsHolds()) {
+            throw new InvalidTransactionException("Cannot hold funds in " + accountType + " Account before maturity!");
+        }
+    }
+
+    private void drop(Hold hold) {
+        heldAmount.addAndGet(-hold.getAmount());
+        activeHolds.remove(hold.getHoldId(), hold);
+    }
+
+    public Hold getHold(String holdId) {
+        return activeHolds.get(holdId);
+    }
+
+    public Collection<Hold> getActiveHolds() {
+        return Collections.unmodifiableCollection(activeHolds.values());
+    }
+
+    public long getHeldAmount() {
+        return heldAmount.get();
+    }
+
+    public long getAvailableBalance() {
+        return this.balance - heldAmount.get();
+    }
+
+    // Credits one month of interest and returns the amount credited
+    public long calculateInterest() {
+        return calculateInterest(1);
+    }
+
+    // Advances the account by the given number of monthly postings in one step
+    public abstract long calculateInterest(int months);
 
     public String getAccountDetails() {
-        return String.format("Account: %s | Type: %s | Balance: Euro %.2f | Status: %s",
-                accountNumber, accountType, balance, isActive ? "Active" : "Inactive");
+        return String.format("Account: %s | Type: %s | Balance: Euro %s | Status: %s",
+                accountNumber, accountType, Money.format(balance), isActive ? "Active" : "Inactive");
     }
 
     public String getAccountNumber() {
@@ -56,7 +193,7 @@ public abstract class Account {
         return customer;
     }
 
-    public double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
@@ -76,21 +213,35 @@ public abstract class Account {
         return accountType;
     }
 
-    public List<String> getTransactions() {
-        return new ArrayList<>(transactions);
+    public Iterable<AccountActivity> getRecentActivity() {
+        return activityLog;
     }
 
-    public void addTransaction(String transaction) {
-        transactions.add(transaction);
+    public long getActivityCount() {
+        return activityLog.getRecordedCount();
     }
 
     @Override
     public String toString() {
-        return String.format("Account: %s | Type: %s | Balance: Euro %.2f | Status: %s",
-                accountNumber, accountType, balance, isActive ? "Active" : "Inactive");
+        return String.format("Account: %s | Type: %s | Balance: Euro %s | Status: %s",
+                accountNumber, accountType, Money.format(balance), isActive ? "Active" : "Inactive");
     }
 
-    public void recordTransaction(String transactionDescription) {
-        this.transactions.add(transactionDescription);
+    public void restoreState(long balance, LocalDate openingDate, boolean active) {
+        this.balance = balance;
+        this.openingDate = openingDate;
+        this.isActive = active;
+    }
+
+    public void setActivityListener(AccountActivityListener activityListener) {
+        this.activityListener = activityListener;
+    }
+
+    public void recordActivity(ActivityType type, long amount, String counterpartyId) {
+        AccountActivity activity = new AccountActivity(type, amount, System.currentTimeMillis(), counterpartyId);
+        activityLog.record(activity);
+        if (activityListener != null) {
+            activityListener.onActivity(this, activity);
+        }
     }
 }
\ No newline at end of file
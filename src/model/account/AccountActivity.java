@@ -0,0 +1,13 @@
+package model.account;
+
+import util.Money;
+
+public record AccountActivity(ActivityType type, long amount, long epochMillis, String counterpartyId) {
+
+    @Override
+    public String toString() {
+        return counterpartyId == null
+                ? type + " - " + Money.format(amount)
+                : type + " - " + Money.format(amount) + " - " + counterpartyId;
+    }
+}
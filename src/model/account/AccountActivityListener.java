@@ -0,0 +1,7 @@
+package model.account;
+
+@FunctionalInterface
+public interface AccountActivityListener {
+
+    void onActivity(Account account, AccountActivity activity);
+}
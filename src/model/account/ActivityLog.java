@@ -0,0 +1,64 @@
+package model.account;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Fixed-capacity ring of the most recent activity on one account; full history lives in
+// TransactionRepository. Writers are serialised by the account lock in AccountService.
+public class ActivityLog implements Iterable<AccountActivity> {
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final AccountActivity[] entries;
+    private long recorded;
+
+    public ActivityLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ActivityLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Activity log capacity must be positive");
+        }
+        this.entries = new AccountActivity[capacity];
+    }
+
+    public void record(AccountActivity activity) {
+        entries[(int) (recorded % entries.length)] = activity;
+        recorded++;
+    }
+
+    public long getRecordedCount() {
+        return recorded;
+    }
+
+    public int size() {
+        return (int) Math.min(recorded, entries.length);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    // Oldest retained entry first; iterates the ring in place without copying
+    @Override
+    public Iterator<AccountActivity> iterator() {
+        long end = recorded;
+        long start = Math.max(0, end - entries.length);
+        return new Iterator<>() {
+            private long next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public AccountActivity next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                return entries[(int) (next++ % entries.length)];
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package model.account;
+
+public enum ActivityType {
+    DEPOSIT(1),
+    WITHDRAWAL(-1),
+    TRANSFER_IN(1),
+    TRANSFER_OUT(-1),
+    LOAN_DISBURSEMENT(1),
+    INTEREST_CREDIT(1),
+    ACCOUNT_OPENING(1),
+    FEE_DEBIT(-1),
+    LOAN_REPAYMENT(-1),
+    REVERSAL(1),
+    ADJUSTMENT(1),
+    HOLD_CAPTURE(-1);
+
+    private final int sign;
+
+    ActivityType(int sign) {
+        this.sign = sign;
+    }
+
+    // Activity amounts are magnitudes; this is the change they make to the balance
+    public long balanceDelta(long amount) {
+        return sign * amount;
+    }
+}
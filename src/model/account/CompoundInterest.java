@@ -0,0 +1,52 @@
+package model.account;
+
+import util.Money;
+import java.math.RoundingMode;
+
+// Closed-form monthly compounding, so advancing a deposit by any number of months is O(1).
+// Interest is rounded once at the end; a multi-month step can differ by a few cents from the
+// same months posted one at a time.
+public final class CompoundInterest {
+
+    private CompoundInterest() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    // Interest on a lump sum compounded monthly: P * ((1 + r)^n - 1)
+    public static long interest(long principal, double monthlyRate, int months) {
+        return interest(principal, 0, monthlyRate, months);
+    }
+
+    // Adds the interest on installments paid at the start of each month (annuity due):
+    // d * ((1 + r) * ((1 + r)^n - 1) / r - n). The growth above one is computed directly rather
+    // than as a difference of balances, so the result stays at interest scale. A single month is
+    // round((P + d) * r), exactly what one month-by-month posting credits.
+    public static long interest(long principal, long installment, double monthlyRate, int months) {
+        if (months < 0) {
+            throw new IllegalArgumentException("Months cannot be negative");
+        }
+        if (months == 0) {
+            return 0;
+        }
+        if (months == 1) {
+            return Money.applyRate(Money.add(principal, installment), monthlyRate, RoundingMode.HALF_EVEN);
+        }
+        double growthAboveOne = Math.expm1(months * Math.log1p(monthlyRate));
+        double total = principal * growthAboveOne;
+        if (installment != 0 && monthlyRate != 0) {
+            total += installment * ((1 + monthlyRate) * growthAboveOne / monthlyRate - months);
+        }
+        return Money.round(total, RoundingMode.HALF_EVEN);
+    }
+
+    // Lump sum compounded monthly: P * (1 + r)^n
+    public static long futureValue(long principal, double monthlyRate, int months) {
+        return futureValue(principal, 0, monthlyRate, months);
+    }
+
+    // Balance after the months: principal plus every installment plus the interest on both
+    public static long futureValue(long principal, long installment, double monthlyRate, int months) {
+        long installments = Money.multiply(installment, months);
+        return Money.add(Money.add(principal, installments), interest(principal, installment, monthlyRate, months));
+    }
+}
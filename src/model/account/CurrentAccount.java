@@ -1,13 +1,14 @@
 package model.account;
 
 import model.user.Customer;
+import util.Money;
 
 
 public final class CurrentAccount extends Account {
 
-    private double overdraftLimit;
+    private long overdraftLimit;
 
-    public CurrentAccount(String accountNumber, Customer customer, double balance, double overdraftLimit) {
+    public CurrentAccount(String accountNumber, Customer customer, long balance, long overdraftLimit) {
         super(accountNumber, customer, balance);
 
         this.overdraftLimit = overdraftLimit;
@@ -15,28 +16,33 @@ public final class CurrentAccount extends Account {
     }
 
     @Override
-    public void withdraw(double amount) throws Exception {
+    public void withdraw(long amount) throws Exception {
         if (amount <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
 
-        if (amount > (this.balance + this.overdraftLimit)) {
-            throw new Exception("Overdraft limit exceeded! Available: " + (this.balance + this.overdraftLimit));
+        if (!tryDebit(amount)) {
+            throw new Exception("Overdraft limit exceeded! Available: " + Money.format(getAvailableBalance() + this.overdraftLimit));
         }
-        this.balance -= amount;
     }
 
     @Override
-    public void calculateInterest() {
+    protected long getOverdraftAllowance() {
+        return overdraftLimit;
+    }
+
+    @Override
+    public long calculateInterest(int months) {
         // Current accounts typically don't earn interest
+        return 0;
     }
 
     @Override
     public String getAccountDetails() {
-        return super.toString() + " | Overdraft Limit: Euro " + String.format("%.2f", this.overdraftLimit);
+        return super.toString() + " | Overdraft Limit: Euro " + Money.format(this.overdraftLimit);
     }
 
-    public double getOverdraftLimit() {
+    public long getOverdraftLimit() {
         return overdraftLimit;
     }
 }
\ No newline at end of file
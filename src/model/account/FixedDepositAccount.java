@@ -1,6 +1,8 @@
 package model.account;
 
 import model.user.Customer;
+import util.Money;
+import java.time.LocalDate;
 
 public final class FixedDepositAccount extends Account {
 
@@ -8,7 +10,7 @@ public final class FixedDepositAccount extends Account {
     private int tenureMonths;
     private int monthsCompleted;
 
-    public FixedDepositAccount(String accountNumber, Customer customer, double amount,
+    public FixedDepositAccount(String accountNumber, Customer customer, long amount,
                                double interestRate, int tenureMonths) {
         super(accountNumber, customer, amount);
 
@@ -19,17 +21,37 @@ public final class FixedDepositAccount extends Account {
     }
 
     @Override
-    public void withdraw(double amount) throws Exception {
+    public void withdraw(long amount) throws Exception {
         throw new Exception("Cannot withdraw from Fixed Deposit Account before maturity!");
     }
 
     @Override
-    public void calculateInterest() {
-        if (monthsCompleted < tenureMonths) {
-            double interest = this.balance * this.interestRate / 12;
-            this.balance += interest;
-            monthsCompleted++;
+    public boolean supportsHolds() {
+        return false;
+    }
+
+    @Override
+    public long calculateInterest(int months) {
+        int due = Math.min(months, getMonthsRemaining());
+        if (due <= 0) {
+            return 0;
         }
+        long interest = CompoundInterest.interest(this.balance, this.interestRate / 12, due);
+        this.balance = Money.add(this.balance, interest);
+        monthsCompleted += due;
+        return interest;
+    }
+
+    public long projectMaturityValue() {
+        return CompoundInterest.futureValue(this.balance, this.interestRate / 12, getMonthsRemaining());
+    }
+
+    public LocalDate getMaturityDate() {
+        return openingDate.plusMonths(tenureMonths);
+    }
+
+    public int getMonthsRemaining() {
+        return Math.max(0, tenureMonths - monthsCompleted);
     }
 
     @Override
@@ -49,4 +71,8 @@ public final class FixedDepositAccount extends Account {
     public int getMonthsCompleted() {
         return monthsCompleted;
     }
+
+    public void restoreMonthsCompleted(int monthsCompleted) {
+        this.monthsCompleted = monthsCompleted;
+    }
 }
\ No newline at end of file
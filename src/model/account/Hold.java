@@ -0,0 +1,65 @@
+package model.account;
+
+import util.Money;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A reservation against an account's available balance. A hold settles exactly once: capture,
+// release and expiry race through one compare-and-set on the status. The only way back is a
+// capture whose posting failed to persist, which reopens the hold.
+public final class Hold {
+    private final String holdId;
+    private final String accountNumber;
+    private final long amount;
+    private final long createdAtMillis;
+    private final long expiresAtMillis;
+    private final AtomicReference<HoldStatus> status = new AtomicReference<>(HoldStatus.ACTIVE);
+
+    Hold(String holdId, String accountNumber, long amount, long createdAtMillis, long expiresAtMillis) {
+        this.holdId = holdId;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.createdAtMillis = createdAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    boolean settle(HoldStatus outcome) {
+        return status.compareAndSet(HoldStatus.ACTIVE, outcome);
+    }
+
+    boolean reopen() {
+        return status.compareAndSet(HoldStatus.CAPTURED, HoldStatus.ACTIVE);
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public HoldStatus getStatus() {
+        return status.get();
+    }
+
+    public boolean isActive() {
+        return status.get() == HoldStatus.ACTIVE;
+    }
+
+    @Override
+    public String toString() {
+        return holdId + " | " + Money.format(amount) + " | " + status.get();
+    }
+}
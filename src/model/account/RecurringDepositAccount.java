@@ -1,17 +1,19 @@
 package model.account;
 
 import model.user.Customer;
+import util.Money;
+import java.time.LocalDate;
 
 
 public final class RecurringDepositAccount extends Account {
 
-    private double monthlyDeposit;
+    private long monthlyDeposit;
     private double interestRate;
     private int tenureMonths;
     private int monthsCompleted;
 
-    public RecurringDepositAccount(String accountNumber, Customer customer, double initialBalance,
-                                   double monthlyDeposit, double interestRate, int tenureMonths) {
+    public RecurringDepositAccount(String accountNumber, Customer customer, long initialBalance,
+                                   long monthlyDeposit, double interestRate, int tenureMonths) {
 
         super(accountNumber, customer, initialBalance);
 
@@ -23,30 +25,48 @@ public final class RecurringDepositAccount extends Account {
     }
 
     @Override
-    public void calculateInterest() {
-        if (monthsCompleted < tenureMonths) {
-            this.balance += monthlyDeposit;
+    public long calculateInterest(int months) {
+        int due = Math.min(months, getMonthsRemaining());
+        if (due <= 0) {
+            return 0;
+        }
+        long installments = Money.multiply(monthlyDeposit, due);
+        long interest = CompoundInterest.interest(this.balance, monthlyDeposit, this.interestRate / 12, due);
+        this.balance = Money.add(Money.add(this.balance, installments), interest);
+        monthsCompleted += due;
+        return interest;
+    }
+
+    public long projectMaturityValue() {
+        return CompoundInterest.futureValue(this.balance, monthlyDeposit, this.interestRate / 12, getMonthsRemaining());
+    }
 
-            double interest = this.balance * this.interestRate / 12;
-            this.balance += interest;
+    public LocalDate getMaturityDate() {
+        return openingDate.plusMonths(tenureMonths);
+    }
 
-            monthsCompleted++;
-        }
+    public int getMonthsRemaining() {
+        return Math.max(0, tenureMonths - monthsCompleted);
     }
 
     @Override
-    public void withdraw(double amount) throws Exception {
+    public void withdraw(long amount) throws Exception {
         throw new Exception("Cannot withdraw from Recurring Deposit Account before maturity!");
     }
 
+    @Override
+    public boolean supportsHolds() {
+        return false;
+    }
+
     @Override
     public String getAccountDetails() {
-        return super.toString() + " | Monthly Deposit: Euro " + String.format("%.2f", monthlyDeposit) +
+        return super.toString() + " | Monthly Deposit: Euro " + Money.format(monthlyDeposit) +
                 " | Interest Rate: " + (interestRate * 100) + "% | Tenure: " + tenureMonths +
                 " months | Completed: " + monthsCompleted + " months";
     }
 
-    public double getMonthlyDeposit() {
+    public long getMonthlyDeposit() {
         return monthlyDeposit;
     }
 
@@ -61,4 +81,8 @@ public final class RecurringDepositAccount extends Account {
     public int getMonthsCompleted() {
         return monthsCompleted;
     }
+
+    public void restoreMonthsCompleted(int monthsCompleted) {
+        this.monthsCompleted = monthsCompleted;
+    }
 }
\ No newline at end of file
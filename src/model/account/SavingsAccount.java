@@ -1,13 +1,14 @@
 package model.account;
 
 import model.user.Customer;
+import util.Money;
 
 
 public final class SavingsAccount extends Account {
 
     private double interestRate;
 
-    public SavingsAccount(String accountNumber, Customer customer, double balance, double interestRate) {
+    public SavingsAccount(String accountNumber, Customer customer, long balance, double interestRate) {
 
         super(accountNumber, customer, balance);
 
@@ -16,10 +17,10 @@ public final class SavingsAccount extends Account {
     }
 
     @Override
-    public void calculateInterest() {
-
-        double interest = this.balance * this.interestRate / 12;
-        this.balance += interest;
+    public long calculateInterest(int months) {
+        long interest = CompoundInterest.interest(this.balance, this.interestRate / 12, months);
+        this.balance = Money.add(this.balance, interest);
+        return interest;
     }
 
 
@@ -1,25 +1,26 @@
 package model.account;
 
 import exception.InsufficientFundsException;
+import util.Money;
 
 public interface Transactional {
     
-    void deposit(double amount);
+    void deposit(long amount);
     
-    void withdraw(double amount) throws InsufficientFundsException;
+    void withdraw(long amount) throws InsufficientFundsException;
     
-    double getBalance();
+    long getBalance();
 
     default String getTransactionSummary() {
-        return "Current Balance: Euro " + String.format("%.2f", getBalance());
+        return "Current Balance: Euro " + Money.format(getBalance());
     }
 
-    static boolean isValidAmount(double amount) {
-        return amount > 0 && amount <= 1000000;
+    static boolean isValidAmount(long amount) {
+        return amount > 0 && amount <= Money.ofMajor(1000000L);
     }
 
-    private String formatCurrency(double amount) {
-        return "Euro " + String.format("%.2f", amount);
+    private String formatCurrency(long amount) {
+        return "Euro " + Money.format(amount);
     }
 
     default String getFormattedBalance() {
@@ -1,12 +1,13 @@
 package model.common;
 
 import java.time.LocalDate;
+import util.Money;
 
 public record AccountSummary(
     String accountNumber,
     String customerName,
     String accountType,
-    double balance,
+    long balance,
     LocalDate openingDate,
     int transactionCount
 ) {
@@ -28,7 +29,7 @@ public record AccountSummary(
     
 
     public String getFormattedBalance() {
-        return String.format("Euro %.2f", balance);
+        return "Euro " + Money.format(balance);
     }
     
     public String getSummaryString() {
@@ -39,6 +40,6 @@ public record AccountSummary(
     }
     
     public boolean isHighBalance() {
-        return balance > 50000;
+        return balance > Money.ofMajor(50000L);
     }
 }
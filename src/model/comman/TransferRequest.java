@@ -2,12 +2,13 @@ package model.common;
 
 import java.time.LocalDateTime;
 import model.account.Account;
+import util.Money;
 
 public record TransferRequest(
     String requestId,
     Account fromAccount,
     Account toAccount,
-    double amount,
+    long amount,
     String purpose,
     LocalDateTime requestTime,
     String status
@@ -29,7 +30,7 @@ public record TransferRequest(
     }
 
     public String getFormattedAmount() {
-        return String.format("Euro %.2f", amount);
+        return "Euro " + Money.format(amount);
     }
     
     public boolean isValid() {
@@ -0,0 +1,145 @@
+package model.ledger;
+
+import model.account.ActivityType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Event stream for one account, held column-wise so long histories cost a few primitive slots per
+// event. The running balance is kept for O(1) reads and a snapshot is taken every
+// snapshotInterval events, so any past balance is at most snapshotInterval additions away.
+public class AccountLedger {
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 64;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String accountNumber;
+    private final int snapshotInterval;
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private long[] deltas = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private ActivityType[] types = new ActivityType[INITIAL_CAPACITY];
+    private String[] references = new String[INITIAL_CAPACITY];
+    // snapshots[j] is the balance after the first (j + 1) * snapshotInterval events
+    private long[] snapshots = new long[INITIAL_CAPACITY];
+    private int size;
+    private long balance;
+
+    public AccountLedger(String accountNumber) {
+        this(accountNumber, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public AccountLedger(String accountNumber, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        this.accountNumber = accountNumber;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // Returns the balance after the event. Timestamps are clamped to be non-decreasing so
+    // point-in-time lookups can binary search even if the wall clock steps back.
+    public synchronized long append(LedgerEvent event) {
+        if (!accountNumber.equals(event.accountNumber())) {
+            throw new IllegalArgumentException("Event for " + event.accountNumber() + " appended to ledger of " + accountNumber);
+        }
+        if (size > 0 && event.sequence() <= sequences[size - 1]) {
+            throw new IllegalStateException("Ledger event " + event.sequence() + " is out of order for " + accountNumber);
+        }
+        if (size == sequences.length) {
+            grow();
+        }
+        sequences[size] = event.sequence();
+        deltas[size] = event.delta();
+        timestamps[size] = size > 0 ? Math.max(timestamps[size - 1], event.epochMillis()) : event.epochMillis();
+        types[size] = event.type();
+        references[size] = event.reference();
+        balance = Math.addExact(balance, event.delta());
+        size++;
+        if (size % snapshotInterval == 0) {
+            int slot = size / snapshotInterval - 1;
+            if (slot == snapshots.length) {
+                snapshots = Arrays.copyOf(snapshots, slot + (slot >> 1));
+            }
+            snapshots[slot] = balance;
+        }
+        return balance;
+    }
+
+    private void grow() {
+        int capacity = size + (size >> 1);
+        sequences = Arrays.copyOf(sequences, capacity);
+        deltas = Arrays.copyOf(deltas, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        types = Arrays.copyOf(types, capacity);
+        references = Arrays.copyOf(references, capacity);
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public synchronized long getBalance() {
+        return balance;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Balance after the first eventCount events: nearest snapshot plus fewer than snapshotInterval deltas
+    public synchronized long balanceAfter(int eventCount) {
+        if (eventCount < 0 || eventCount > size) {
+            throw new IndexOutOfBoundsException("Event count " + eventCount + " outside 0.." + size);
+        }
+        int snapshotted = eventCount / snapshotInterval;
+        long result = snapshotted == 0 ? 0 : snapshots[snapshotted - 1];
+        for (int i = snapshotted * snapshotInterval; i < eventCount; i++) {
+            result += deltas[i];
+        }
+        return result;
+    }
+
+    // Balance including every event recorded at or before the given instant
+    public synchronized long balanceAt(long epochMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return balanceAfter(low);
+    }
+
+    // Re-derives the current balance from the latest snapshot and checks it against the projection
+    public synchronized long rebuild() {
+        long rebuilt = balanceAfter(size);
+        if (rebuilt != balance) {
+            throw new IllegalStateException("Ledger of " + accountNumber + " rebuilt to " + rebuilt
+                    + " but projects " + balance);
+        }
+        return rebuilt;
+    }
+
+    public synchronized LedgerEvent get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Event " + index + " outside 0.." + size);
+        }
+        return new LedgerEvent(sequences[index], accountNumber, types[index], deltas[index],
+                timestamps[index], references[index]);
+    }
+
+    public synchronized List<LedgerEvent> events(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range " + fromIndex + ".." + toIndex + " outside 0.." + size);
+        }
+        List<LedgerEvent> result = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            result.add(new LedgerEvent(sequences[i], accountNumber, types[i], deltas[i], timestamps[i], references[i]));
+        }
+        return result;
+    }
+}
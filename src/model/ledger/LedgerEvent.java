@@ -0,0 +1,16 @@
+package model.ledger;
+
+import model.account.ActivityType;
+import util.Money;
+
+// One immutable balance change; delta is signed, so a projection is a plain running sum
+public record LedgerEvent(long sequence, String accountNumber, ActivityType type, long delta,
+                          long epochMillis, String reference) {
+
+    @Override
+    public String toString() {
+        return reference == null
+                ? "#" + sequence + " " + type + " " + Money.format(delta)
+                : "#" + sequence + " " + type + " " + Money.format(delta) + " - " + reference;
+    }
+}
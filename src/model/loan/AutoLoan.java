@@ -1,13 +1,15 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 
 public class AutoLoan extends Loan {
     private String vehicleModel;
-    private double vehicleValue;
+    private long vehicleValue;
     private int registrationYear;
 
-    public AutoLoan(String loanId, Customer customer, double principal, int tenureMonths, String vehicleModel, double vehicleValue, int registrationYear) {
+    public AutoLoan(String loanId, Customer customer, long principal, int tenureMonths, String vehicleModel, long vehicleValue, int registrationYear) {
         super(loanId, customer, principal, 0.075, tenureMonths);
         this.vehicleModel = vehicleModel;
         this.vehicleValue = vehicleValue;
@@ -17,8 +19,8 @@ public class AutoLoan extends Loan {
     @Override
     public void calculateEMI() {
         double monthlyRate = annualInterestRate / 12;
-        emiAmount = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
-                (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        emiAmount = Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
+                (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
 
     @Override
@@ -27,7 +29,7 @@ public class AutoLoan extends Loan {
     }
 
     public String getAutoLoanDetails() {
-        return "Auto Loan - ID: " + loanId + " | Amount: EUR " + principal +
+        return "Auto Loan - ID: " + loanId + " | Amount: EUR " + Money.format(principal) +
                 " | Vehicle: " + vehicleModel + " | Status: " + status;
     }
 
@@ -35,7 +37,7 @@ public class AutoLoan extends Loan {
         return vehicleModel;
     }
 
-    public double getVehicleValue() {
+    public long getVehicleValue() {
         return vehicleValue;
     }
 
@@ -1,14 +1,16 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 
 public class BusinessLoan extends Loan {
     private String businessName;
     private String businessType;
-    private double annualTurnover;
-    private double collateralValue;
+    private long annualTurnover;
+    private long collateralValue;
 
-    public BusinessLoan(String loanId, Customer customer, double principal, int tenureMonths, String businessName, String businessType, double annualTurnover, double collateralValue) {
+    public BusinessLoan(String loanId, Customer customer, long principal, int tenureMonths, String businessName, String businessType, long annualTurnover, long collateralValue) {
         super(loanId, customer, principal, 0.08, tenureMonths);
         this.businessName = businessName;
         this.businessType = businessType;
@@ -19,8 +21,8 @@ public class BusinessLoan extends Loan {
     @Override
     public void calculateEMI() {
         double monthlyRate = annualInterestRate / 12;
-        emiAmount = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
-                (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        emiAmount = Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
+                (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
 
     @Override
@@ -29,7 +31,7 @@ public class BusinessLoan extends Loan {
     }
 
     public String getBusinessLoanDetails() {
-        return "Business Loan - ID: " + loanId + " | Amount: EUR " + principal +
+        return "Business Loan - ID: " + loanId + " | Amount: EUR " + Money.format(principal) +
                 " | Business: " + businessName + " | Status: " + status;
     }
 
@@ -41,11 +43,11 @@ public class BusinessLoan extends Loan {
         return businessType;
     }
 
-    public double getAnnualTurnover() {
+    public long getAnnualTurnover() {
         return annualTurnover;
     }
 
-    public double getCollateralValue() {
+    public long getCollateralValue() {
         return collateralValue;
     }
 }
\ No newline at end of file
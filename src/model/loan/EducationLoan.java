@@ -1,13 +1,15 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 
 public class EducationLoan extends Loan {
     private String institutionName;
     private String courseType;
     private int courseDuration;
 
-    public EducationLoan(String loanId, Customer customer, double principal, int tenureMonths, String institutionName, String courseType, int courseDuration) {
+    public EducationLoan(String loanId, Customer customer, long principal, int tenureMonths, String institutionName, String courseType, int courseDuration) {
         super(loanId, customer, principal, 0.065, tenureMonths);
         this.institutionName = institutionName;
         this.courseType = courseType;
@@ -17,8 +19,8 @@ public class EducationLoan extends Loan {
     @Override
     public void calculateEMI() {
         double monthlyRate = annualInterestRate / 12;
-        emiAmount = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
-                (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        emiAmount = Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
+                (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
 
     @Override
@@ -27,7 +29,7 @@ public class EducationLoan extends Loan {
     }
 
     public String getEducationLoanDetails() {
-        return "Education Loan - ID: " + loanId + " | Amount: EUR " + principal +
+        return "Education Loan - ID: " + loanId + " | Amount: EUR " + Money.format(principal) +
                 " | Institution: " + institutionName + " | Course: " + courseType + " | Status: " + status;
     }
 
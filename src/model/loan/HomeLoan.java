@@ -1,12 +1,14 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 
 public class HomeLoan extends Loan {
     private String propertyAddress;
-    private double propertyValue;
+    private long propertyValue;
 
-    public HomeLoan(String loanId, Customer customer, double principal, int tenureMonths, String propertyAddress, double propertyValue) {
+    public HomeLoan(String loanId, Customer customer, long principal, int tenureMonths, String propertyAddress, long propertyValue) {
         super(loanId, customer, principal, 0.065, tenureMonths);
         this.propertyAddress = propertyAddress;
         this.propertyValue = propertyValue;
@@ -15,8 +17,8 @@ public class HomeLoan extends Loan {
     @Override
     public void calculateEMI() {
         double monthlyRate = annualInterestRate / 12;
-        emiAmount = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
-                (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        emiAmount = Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
+                (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
 
     @Override
@@ -25,7 +27,7 @@ public class HomeLoan extends Loan {
     }
 
     public String getHomeLoanDetails() {
-        return "Home Loan - ID: " + loanId + " | Amount: EUR " + principal +
+        return "Home Loan - ID: " + loanId + " | Amount: EUR " + Money.format(principal) +
                 " | Property: " + propertyAddress + " | Status: " + status;
     }
 
@@ -33,7 +35,7 @@ public class HomeLoan extends Loan {
         return propertyAddress;
     }
 
-    public double getPropertyValue() {
+    public long getPropertyValue() {
         return propertyValue;
     }
 }
\ No newline at end of file
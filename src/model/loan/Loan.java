@@ -8,15 +8,16 @@ import java.util.List;
 public abstract class Loan {
     protected String loanId;
     protected Customer customer;
-    protected double principal;
+    protected long principal;
     protected double annualInterestRate;
     protected int tenureMonths;
     protected LocalDate disbursementDate;
     protected LoanStatus status;
-    protected double emiAmount;
+    protected long emiAmount;
     protected List<LoanPayment> payments;
+    private LoanStatusListener statusListener;
 
-    public Loan(String loanId, Customer customer, double principal, double annualInterestRate, int tenureMonths) {
+    public Loan(String loanId, Customer customer, long principal, double annualInterestRate, int tenureMonths) {
         this.loanId = loanId;
         this.customer = customer;
         this.principal = principal;
@@ -32,11 +33,23 @@ public abstract class Loan {
     public abstract String getLoanType();
 
     public void setStatus(LoanStatus status) {
-        this.status = status;
+        changeStatus(status);
     }
 
     public void setStatus(String status) {
-        this.status = LoanStatus.valueOf(status.toUpperCase());
+        changeStatus(LoanStatus.valueOf(status.toUpperCase()));
+    }
+
+    public void setStatusListener(LoanStatusListener statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    private void changeStatus(LoanStatus newStatus) {
+        LoanStatus previousStatus = this.status;
+        this.status = newStatus;
+        if (statusListener != null && previousStatus != newStatus) {
+            statusListener.onStatusChange(this, previousStatus, newStatus);
+        }
     }
 
     public LoanStatus getStatus() {
@@ -51,17 +64,24 @@ public abstract class Loan {
         this.payments.add(payment);
     }
 
-    public double getRemainingBalance() {
-        double totalPaid = payments.stream().mapToDouble(p -> p.amount()).sum();
+    public void removePayment(LoanPayment payment) {
+        this.payments.remove(payment);
+    }
+
+    public long getRemainingBalance() {
+        long totalPaid = 0;
+        for (LoanPayment payment : payments) {
+            totalPaid += payment.amount();
+        }
         return principal - totalPaid;
     }
 
     public void rejectLoan(String reason) {
-        this.status = LoanStatus.REJECTED;
+        changeStatus(LoanStatus.REJECTED);
     }
 
     public void activateLoan() {
-        this.status = LoanStatus.ACTIVE;
+        changeStatus(LoanStatus.ACTIVE);
         this.disbursementDate = LocalDate.now();
     }
 
@@ -73,7 +93,7 @@ public abstract class Loan {
         return customer;
     }
 
-    public double getPrincipal() {
+    public long getPrincipal() {
         return principal;
     }
 
@@ -89,7 +109,7 @@ public abstract class Loan {
         return disbursementDate;
     }
 
-    public double getEmiAmount() {
+    public long getEmiAmount() {
         return emiAmount;
     }
 
@@ -1,12 +1,14 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 
 public record LoanDetails(
     String loanId,
     Customer customer,
-    double principal,
+    long principal,
     double annualInterestRate,
     int tenureMonths,
     LocalDate startDate
@@ -30,20 +32,20 @@ public record LoanDetails(
         }
     }
 
-    public double calculateEMI() {
+    public long calculateEMI() {
         double monthlyRate = annualInterestRate / 12 / 100;
         if (monthlyRate == 0) {
-            return principal / tenureMonths;
+            return Money.divide(principal, tenureMonths, RoundingMode.HALF_UP);
         }
-        return (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) 
-                / (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        return Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths))
+                / (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
     
-    public double getTotalPayable() {
-        return calculateEMI() * tenureMonths;
+    public long getTotalPayable() {
+        return Money.multiply(calculateEMI(), tenureMonths);
     }
     
-    public double getTotalInterest() {
+    public long getTotalInterest() {
         return getTotalPayable() - principal;
     }
     
@@ -52,15 +54,15 @@ public record LoanDetails(
     }
     
     public String getFormattedPrincipal() {
-        return String.format("Euro %.2f", principal);
+        return "Euro " + Money.format(principal);
     }
     
     public String getFormattedEMI() {
-        return String.format("Euro %.2f", calculateEMI());
+        return "Euro " + Money.format(calculateEMI());
     }
     
     public String getFormattedTotalInterest() {
-        return String.format("Euro %.2f", getTotalInterest());
+        return "Euro " + Money.format(getTotalInterest());
     }
     
     public String getLoanDetails() {
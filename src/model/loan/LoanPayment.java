@@ -2,11 +2,12 @@ package model.loan;
 
 import java.time.YearMonth;
 import java.time.LocalDate;
+import util.Money;
 
 public record LoanPayment(
     String paymentId,
     Loan loan,
-    double amount,
+    long amount,
     YearMonth paymentMonth,
     LocalDate paymentDate
 ) {
@@ -29,7 +30,7 @@ public record LoanPayment(
     }
 
     public String getFormattedAmount() {
-        return String.format("Euro %.2f", amount);
+        return "Euro " + Money.format(amount);
     }
     
     public String getPaymentDetails() {
@@ -0,0 +1,7 @@
+package model.loan;
+
+@FunctionalInterface
+public interface LoanStatusListener {
+
+    void onStatusChange(Loan loan, LoanStatus previousStatus, LoanStatus newStatus);
+}
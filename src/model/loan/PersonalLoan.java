@@ -1,17 +1,19 @@
 package model.loan;
 
 import model.user.Customer;
+import util.Money;
+import java.math.RoundingMode;
 
 public class PersonalLoan extends Loan {
-    public PersonalLoan(String loanId, Customer customer, double principal, int tenureMonths) {
+    public PersonalLoan(String loanId, Customer customer, long principal, int tenureMonths) {
         super(loanId, customer, principal, 0.09, tenureMonths);
     }
 
     @Override
     public void calculateEMI() {
         double monthlyRate = annualInterestRate / 12;
-        emiAmount = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
-                (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+        emiAmount = Money.round((principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) /
+                (Math.pow(1 + monthlyRate, tenureMonths) - 1), RoundingMode.HALF_UP);
     }
 
     @Override
@@ -20,7 +22,7 @@ public class PersonalLoan extends Loan {
     }
 
     public String getPersonalLoanDetails() {
-        return "Personal Loan - ID: " + loanId + " | Amount: EUR " + principal +
-                " | Status: " + status + " | EMI: EUR " + String.format("%.2f", emiAmount);
+        return "Personal Loan - ID: " + loanId + " | Amount: EUR " + Money.format(principal) +
+                " | Status: " + status + " | EMI: EUR " + Money.format(emiAmount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package model.transaction;
+
+// estimate may exceed the true value by at most maxOverestimate; accounts evicted from a
+// sub-window's summary can also be undercounted there
+public record AccountRanking(String accountNumber, long estimate, long maxOverestimate) {
+}
@@ -0,0 +1,6 @@
+package model.transaction;
+
+public enum ActivityMetric {
+    COUNT,
+    AMOUNT
+}
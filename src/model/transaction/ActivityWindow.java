@@ -0,0 +1,31 @@
+package model.transaction;
+
+import java.time.Duration;
+
+// Sliding windows are built from a ring of sub-windows, so the covered span moves forward one
+// sub-window at a time
+public enum ActivityWindow {
+    LAST_MINUTE(Duration.ofMinutes(1), 12),
+    LAST_HOUR(Duration.ofHours(1), 12),
+    LAST_DAY(Duration.ofDays(1), 24);
+
+    private final Duration length;
+    private final int subWindows;
+
+    ActivityWindow(Duration length, int subWindows) {
+        this.length = length;
+        this.subWindows = subWindows;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+
+    public int getSubWindows() {
+        return subWindows;
+    }
+
+    public long getSubWindowMillis() {
+        return length.toMillis() / subWindows;
+    }
+}
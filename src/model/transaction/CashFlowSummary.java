@@ -0,0 +1,39 @@
+package model.transaction;
+
+import util.Money;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Counts and totals per transaction type over [from, to), both on hour boundaries
+public record CashFlowSummary(LocalDateTime from, LocalDateTime to,
+                              Map<TransactionType, Long> counts, Map<TransactionType, Long> totals) {
+
+    public CashFlowSummary {
+        counts = Map.copyOf(counts);
+        totals = Map.copyOf(totals);
+    }
+
+    public long getCount(TransactionType type) {
+        return counts.getOrDefault(type, 0L);
+    }
+
+    public long getTotal(TransactionType type) {
+        return totals.getOrDefault(type, 0L);
+    }
+
+    public long getTotalCount() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getNetCashFlow() {
+        return Money.subtract(getTotal(TransactionType.DEPOSIT), getTotal(TransactionType.WITHDRAWAL));
+    }
+
+    public String getSummary() {
+        return String.format("%s to %s | Deposits: Euro %s (%d) | Withdrawals: Euro %s (%d) | Net: Euro %s",
+                from, to,
+                Money.format(getTotal(TransactionType.DEPOSIT)), getCount(TransactionType.DEPOSIT),
+                Money.format(getTotal(TransactionType.WITHDRAWAL)), getCount(TransactionType.WITHDRAWAL),
+                Money.format(getNetCashFlow()));
+    }
+}
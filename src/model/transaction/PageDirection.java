@@ -0,0 +1,6 @@
+package model.transaction;
+
+public enum PageDirection {
+    OLDEST_FIRST,
+    NEWEST_FIRST
+}
@@ -2,11 +2,12 @@ package model.transaction;
 
 import java.time.LocalDateTime;
 import model.account.Account;
+import util.Money;
 
 public record Transaction(
     String transactionId,
     Account account,
-    double amount,
+    long amount,
     TransactionType type,
     LocalDateTime timestamp,
     String description
@@ -30,7 +31,7 @@ public record Transaction(
     }
 
     public String getFormattedAmount() {
-        return String.format("Euro %.2f", amount);
+        return "Euro " + Money.format(amount);
     }
     
     public String getTransactionDetails() {
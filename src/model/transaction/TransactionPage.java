@@ -0,0 +1,11 @@
+package model.transaction;
+
+import java.util.List;
+
+// nextCursor is opaque; pass it back as the after-cursor to continue in the same direction
+public record TransactionPage(List<Transaction> transactions, String nextCursor, boolean hasMore) {
+
+    public boolean isEmpty() {
+        return transactions.isEmpty();
+    }
+}
@@ -35,6 +35,11 @@ public sealed abstract class User
 
     public abstract String getRole();
 
+    public void restoreCredentials(String passwordHash, LocalDate createdDate) {
+        this.password = passwordHash;
+        this.createdDate = createdDate;
+    }
+
     @Override
     public String toString() {
         return userId + " - " + name + " (" + getRole() + ")";
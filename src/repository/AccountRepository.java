@@ -3,28 +3,74 @@ package repository;
 import model.account.Account;
 import model.user.Customer;
 import exception.AccountNotFoundException;
+import repository.storage.LogRecord;
+import repository.storage.RecordCodec;
+import repository.storage.RecordType;
+import repository.storage.WriteAheadLog;
+import util.AsyncLogger;
+import util.Money;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AccountRepository {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(AccountRepository.class);
+
     private final Map<String, Account> accounts;
+    private WriteAheadLog writeAheadLog;
+    private LedgerRepository ledgerRepository;
     
     public AccountRepository() {
-        this.accounts = new HashMap<>();
+        this.accounts = new ConcurrentHashMap<>();
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    // Every activity recorded on a stored account is forwarded to the ledger as an event
+    public void setLedgerRepository(LedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+        accounts.values().forEach(this::attachLedger);
+    }
+
+    private void attachLedger(Account account) {
+        LedgerRepository ledger = ledgerRepository;
+        account.setActivityListener(ledger == null ? null : ledger::onActivity);
     }
 
     public void save(Account account) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null");
         }
-        accounts.put(account.getAccountNumber(), account);
-        System.out.println("Account " + account.getAccountNumber() + " saved successfully.");
+        logAndApply(RecordType.ACCOUNT_SAVE, RecordCodec.encodeAccount(account),
+                () -> accounts.put(account.getAccountNumber(), account));
+        attachLedger(account);
+        LOGGER.debug("Account saved", "accountNumber", account.getAccountNumber());
+    }
+
+    // Logs the whole batch as one record instead of one per account
+    public void saveAll(List<Account> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        List<LogRecord> records = new ArrayList<>(batch.size());
+        for (Account account : batch) {
+            records.add(new LogRecord(RecordType.ACCOUNT_SAVE, RecordCodec.encodeAccount(account)));
+        }
+        logAndApply(RecordType.BATCH, RecordCodec.encodeBatch(records),
+                () -> batch.forEach(account -> accounts.put(account.getAccountNumber(), account)));
+        batch.forEach(this::attachLedger);
+        LOGGER.debug("Accounts bulk saved", "count", batch.size());
     }
 
     public Account findByAccountNumber(String accountNumber) throws AccountNotFoundException {
-        Account account = accounts.get(accountNumber);
+        Account account = accountNumber == null ? null : accounts.get(accountNumber);
         if (account == null) {
             throw new AccountNotFoundException(accountNumber);
         }
@@ -53,13 +99,13 @@ public class AccountRepository {
                 .toList();
     }
 
-    public List<Account> findAccountsWithBalanceAbove(double threshold) {
+    public List<Account> findAccountsWithBalanceAbove(long threshold) {
         return accounts.values().stream()
                 .filter(a -> a.getBalance() > threshold)
                 .toList();
     }
 
-    public List<Account> findAccountsWithBalanceBelow(double threshold) {
+    public List<Account> findAccountsWithBalanceBelow(long threshold) {
         return accounts.values().stream()
                 .filter(a -> a.getBalance() < threshold)
                 .toList();
@@ -67,33 +113,55 @@ public class AccountRepository {
 
     public void update(Account account) {
         if (account != null && accounts.containsKey(account.getAccountNumber())) {
-            accounts.put(account.getAccountNumber(), account);
-            System.out.println("Account " + account.getAccountNumber() + " updated successfully.");
+            logAndApply(RecordType.ACCOUNT_SAVE, RecordCodec.encodeAccount(account),
+                    () -> accounts.put(account.getAccountNumber(), account));
+            LOGGER.debug("Account updated", "accountNumber", account.getAccountNumber());
         }
     }
 
     public void delete(String accountNumber) {
-        if (accounts.remove(accountNumber) != null) {
-            System.out.println("Account " + accountNumber + " deleted successfully.");
+        if (accountNumber == null) {
+            return;
+        }
+        if (accounts.containsKey(accountNumber)) {
+            logAndApply(RecordType.ACCOUNT_DELETE, RecordCodec.encodeId(accountNumber), () -> {
+                Account removed = accounts.remove(accountNumber);
+                if (removed != null) {
+                    removed.setActivityListener(null);
+                }
+            });
+            LOGGER.debug("Account deleted", "accountNumber", accountNumber);
         }
     }
 
     public boolean exists(String accountNumber) {
-        return accounts.containsKey(accountNumber);
+        return accountNumber != null && accounts.containsKey(accountNumber);
     }
 
     public int count() {
         return accounts.size();
     }
 
-    public double getTotalBalance() {
+    public long getTotalBalance() {
         return accounts.values().stream()
-                .mapToDouble(Account::getBalance)
-                .sum();
+                .mapToLong(Account::getBalance)
+                .reduce(0L, Money::add);
     }
 
     public void deleteAll() {
-        accounts.clear();
-        System.out.println("All accounts deleted.");
+        logAndApply(RecordType.ACCOUNT_CLEAR, new byte[0], () -> {
+            accounts.values().forEach(a -> a.setActivityListener(null));
+            accounts.clear();
+        });
+        LOGGER.info("All accounts deleted");
+    }
+
+    private void logAndApply(RecordType type, byte[] payload, Runnable change) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            change.run();
+        } else {
+            log.appendAndApply(type, payload, change);
+        }
     }
 }
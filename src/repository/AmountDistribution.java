@@ -0,0 +1,82 @@
+package repository;
+
+import model.transaction.Transaction;
+import model.transaction.TransactionType;
+import util.AmountHistogram;
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Amount histograms per transaction type, all-time and per day for the most recent
+// RETAINED_DAYS days. Like CashFlowRollup it follows the repository index, so removals are
+// subtracted from the histograms they were counted in.
+// Not thread-safe; TransactionRepository calls it under its own monitor.
+class AmountDistribution {
+    static final int RETAINED_DAYS = 400;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final AmountHistogram[] allTime = newHistograms();
+    private final NavigableMap<Long, AmountHistogram[]> daily = new TreeMap<>();
+
+    void add(Transaction transaction) {
+        int type = transaction.type().ordinal();
+        allTime[type].record(transaction.amount());
+        long day = transaction.timestamp().toLocalDate().toEpochDay();
+        if (!daily.isEmpty() && day <= daily.lastKey() - RETAINED_DAYS) {
+            return;
+        }
+        daily.computeIfAbsent(day, k -> newHistograms())[type].record(transaction.amount());
+        daily.headMap(daily.lastKey() - RETAINED_DAYS, true).clear();
+    }
+
+    void remove(Transaction transaction) {
+        int type = transaction.type().ordinal();
+        allTime[type].remove(transaction.amount());
+        AmountHistogram[] day = daily.get(transaction.timestamp().toLocalDate().toEpochDay());
+        if (day != null) {
+            day[type].remove(transaction.amount());
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < TYPES.length; i++) {
+            allTime[i] = new AmountHistogram();
+        }
+        daily.clear();
+    }
+
+    // A null type merges every type. A day range beyond the retained days only covers what is kept.
+    AmountHistogram histogram(TransactionType type, LocalDate from, LocalDate to) {
+        AmountHistogram result = new AmountHistogram();
+        if (from == null && to == null) {
+            mergeInto(result, allTime, type);
+            return result;
+        }
+        long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        if (first <= last) {
+            for (AmountHistogram[] day : daily.subMap(first, true, last, true).values()) {
+                mergeInto(result, day, type);
+            }
+        }
+        return result;
+    }
+
+    private static void mergeInto(AmountHistogram target, AmountHistogram[] histograms, TransactionType type) {
+        if (type != null) {
+            target.merge(histograms[type.ordinal()]);
+            return;
+        }
+        for (AmountHistogram histogram : histograms) {
+            target.merge(histogram);
+        }
+    }
+
+    private static AmountHistogram[] newHistograms() {
+        AmountHistogram[] histograms = new AmountHistogram[TYPES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new AmountHistogram();
+        }
+        return histograms;
+    }
+}
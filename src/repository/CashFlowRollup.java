@@ -0,0 +1,159 @@
+package repository;
+
+import model.transaction.CashFlowSummary;
+import model.transaction.Transaction;
+import model.transaction.TransactionType;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Hourly and daily buckets of counts and sums per transaction type, kept in step with the
+// repository's index. A transaction lands in the bucket of its own timestamp, so a late arrival
+// corrects the past bucket it belongs to and a removal backs its amount out again. A window is
+// answered from whole days in the middle plus at most 23 hours on either edge. Hourly buckets
+// are only kept for the newest retainedHours; edges older than that widen to whole days.
+// Not thread-safe; TransactionRepository calls it under its own monitor.
+class CashFlowRollup {
+    static final int DEFAULT_RETAINED_HOURS = 7 * 24;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final long HOURS_PER_DAY = 24;
+
+    private final NavigableMap<Long, Bucket> hourly = new TreeMap<>();
+    private final NavigableMap<Long, Bucket> daily = new TreeMap<>();
+    private final int retainedHours;
+    // Hours below this have been pruned; it only moves forward
+    private long hourlyFloor = Long.MIN_VALUE;
+
+    CashFlowRollup() {
+        this(DEFAULT_RETAINED_HOURS);
+    }
+
+    CashFlowRollup(int retainedHours) {
+        if (retainedHours < HOURS_PER_DAY) {
+            throw new IllegalArgumentException("At least one day of hourly buckets must be retained");
+        }
+        this.retainedHours = retainedHours;
+    }
+
+    void add(Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    void remove(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    void clear() {
+        hourly.clear();
+        daily.clear();
+        hourlyFloor = Long.MIN_VALUE;
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        long hour = hourOf(transaction.timestamp());
+        long day = Math.floorDiv(hour, HOURS_PER_DAY);
+        int type = transaction.type().ordinal();
+        long amount = sign * transaction.amount();
+        if (hour >= hourlyFloor) {
+            update(hourly, hour, type, sign, amount);
+            prune();
+        }
+        update(daily, day, type, sign, amount);
+    }
+
+    private void prune() {
+        if (hourly.isEmpty()) {
+            return;
+        }
+        long floor = hourly.lastKey() - retainedHours + 1;
+        if (floor > hourlyFloor) {
+            hourlyFloor = floor;
+            hourly.headMap(floor, false).clear();
+        }
+    }
+
+    private static void update(NavigableMap<Long, Bucket> buckets, long key, int type, int count, long amount) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+        bucket.counts[type] += count;
+        bucket.totals[type] += amount;
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    // from is rounded down and to rounded up to whole hours, or to whole days where the edge
+    // falls before the retained hourly buckets; the summary reports the window actually covered
+    CashFlowSummary summarise(LocalDateTime from, LocalDateTime to) {
+        long startHour = hourOf(from);
+        long endHour = hourOf(to) + (to.truncatedTo(ChronoUnit.HOURS).equals(to) ? 0 : 1);
+        if (startHour < hourlyFloor) {
+            startHour = Math.floorDiv(startHour, HOURS_PER_DAY) * HOURS_PER_DAY;
+        }
+        long endDayStart = Math.floorDiv(endHour, HOURS_PER_DAY) * HOURS_PER_DAY;
+        if (endDayStart < hourlyFloor && endHour != endDayStart) {
+            endHour = endDayStart + HOURS_PER_DAY;
+        }
+        Bucket result = new Bucket();
+        if (startHour < endHour) {
+            long firstFullDay = Math.floorDiv(startHour + HOURS_PER_DAY - 1, HOURS_PER_DAY);
+            long lastFullDay = Math.floorDiv(endHour, HOURS_PER_DAY);
+            if (firstFullDay < lastFullDay) {
+                mergeInto(result, hourly.subMap(startHour, true, firstFullDay * HOURS_PER_DAY, false));
+                mergeInto(result, daily.subMap(firstFullDay, true, lastFullDay, false));
+                mergeInto(result, hourly.subMap(lastFullDay * HOURS_PER_DAY, true, endHour, false));
+            } else {
+                mergeInto(result, hourly.subMap(startHour, true, endHour, false));
+            }
+        }
+        Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+        Map<TransactionType, Long> totals = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TYPES) {
+            counts.put(type, result.counts[type.ordinal()]);
+            totals.put(type, result.totals[type.ordinal()]);
+        }
+        return new CashFlowSummary(toDateTime(startHour), toDateTime(Math.max(startHour, endHour)), counts, totals);
+    }
+
+    private static void mergeInto(Bucket target, Map<Long, Bucket> buckets) {
+        for (Bucket bucket : buckets.values()) {
+            for (int i = 0; i < TYPES.length; i++) {
+                target.counts[i] += bucket.counts[i];
+                target.totals[i] += bucket.totals[i];
+            }
+        }
+    }
+
+    int hourlyBucketCount() {
+        return hourly.size();
+    }
+
+    int dailyBucketCount() {
+        return daily.size();
+    }
+
+    private static long hourOf(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static LocalDateTime toDateTime(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private static final class Bucket {
+        private final long[] counts = new long[TYPES.length];
+        private final long[] totals = new long[TYPES.length];
+
+        boolean isEmpty() {
+            for (int i = 0; i < TYPES.length; i++) {
+                if (counts[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package repository;
+
+import model.transaction.AccountRanking;
+import model.transaction.ActivityMetric;
+import model.transaction.ActivityWindow;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Most active accounts by count and by amount over each ActivityWindow. Every sub-window keeps
+// two fixed-size Space-Saving summaries that are reset when the ring wraps onto them, so memory
+// is fixed no matter how many accounts or transactions pass through. Queries merge the
+// sub-windows still inside the window.
+class HeavyHitters {
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final Map<ActivityWindow, Ring> rings = new EnumMap<>(ActivityWindow.class);
+
+    HeavyHitters() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    HeavyHitters(int capacity) {
+        for (ActivityWindow window : ActivityWindow.values()) {
+            rings.put(window, new Ring(window, capacity));
+        }
+    }
+
+    synchronized void record(String accountNumber, long amount, long epochMillis) {
+        for (Ring ring : rings.values()) {
+            ring.record(accountNumber, amount, epochMillis);
+        }
+    }
+
+    synchronized List<AccountRanking> top(ActivityWindow window, ActivityMetric metric, int limit, long nowMillis) {
+        Map<String, long[]> totals = new HashMap<>();
+        rings.get(window).addTo(totals, metric, nowMillis);
+        List<AccountRanking> ranking = new ArrayList<>(totals.size());
+        totals.forEach((account, total) -> ranking.add(new AccountRanking(account, total[0], total[1])));
+        ranking.sort(Comparator.comparingLong(AccountRanking::estimate).reversed()
+                .thenComparing(AccountRanking::accountNumber));
+        return ranking.size() > limit ? new ArrayList<>(ranking.subList(0, limit)) : ranking;
+    }
+
+    synchronized void clear() {
+        rings.values().forEach(Ring::clear);
+    }
+
+    private static final class Ring {
+        private final long subWindowMillis;
+        private final long[] subWindowIndexes;
+        private final SpaceSavingSummary[] counts;
+        private final SpaceSavingSummary[] amounts;
+
+        Ring(ActivityWindow window, int capacity) {
+            int size = window.getSubWindows();
+            this.subWindowMillis = window.getSubWindowMillis();
+            this.subWindowIndexes = new long[size];
+            this.counts = new SpaceSavingSummary[size];
+            this.amounts = new SpaceSavingSummary[size];
+            for (int i = 0; i < size; i++) {
+                subWindowIndexes[i] = Long.MIN_VALUE;
+                counts[i] = new SpaceSavingSummary(capacity);
+                amounts[i] = new SpaceSavingSummary(capacity);
+            }
+        }
+
+        void record(String accountNumber, long amount, long epochMillis) {
+            long index = Math.floorDiv(epochMillis, subWindowMillis);
+            int slot = (int) Math.floorMod(index, (long) subWindowIndexes.length);
+            if (subWindowIndexes[slot] > index) {
+                return; // older than anything this ring still covers
+            }
+            if (subWindowIndexes[slot] < index) {
+                subWindowIndexes[slot] = index;
+                counts[slot].clear();
+                amounts[slot].clear();
+            }
+            counts[slot].offer(accountNumber, 1);
+            amounts[slot].offer(accountNumber, amount);
+        }
+
+        void addTo(Map<String, long[]> totals, ActivityMetric metric, long nowMillis) {
+            long current = Math.floorDiv(nowMillis, subWindowMillis);
+            SpaceSavingSummary[] summaries = metric == ActivityMetric.COUNT ? counts : amounts;
+            for (int slot = 0; slot < subWindowIndexes.length; slot++) {
+                long index = subWindowIndexes[slot];
+                if (index <= current && index > current - subWindowIndexes.length) {
+                    summaries[slot].addTo(totals);
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < subWindowIndexes.length; i++) {
+                subWindowIndexes[i] = Long.MIN_VALUE;
+                counts[i].clear();
+                amounts[i].clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package repository;
+
+import model.account.Account;
+import model.account.AccountActivity;
+import model.account.ActivityType;
+import model.ledger.AccountLedger;
+import model.ledger.LedgerEvent;
+import repository.storage.RecordCodec;
+import repository.storage.RecordType;
+import repository.storage.WriteAheadLog;
+import util.AsyncLogger;
+import util.Money;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Append-only record of every balance change. Per-account ledgers are projections of the event
+// stream: the current balance is a field read, and any past balance is rebuilt from the nearest
+// snapshot in at most snapshotInterval steps.
+public class LedgerRepository {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(LedgerRepository.class);
+    private static final int EXPORT_CHUNK = 1024;
+
+    private final Map<String, AccountLedger> ledgers = new ConcurrentHashMap<>();
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final LongAdder eventCount = new LongAdder();
+    private final int snapshotInterval;
+    private WriteAheadLog writeAheadLog;
+
+    public LedgerRepository() {
+        this(AccountLedger.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public LedgerRepository(int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public void onActivity(Account account, AccountActivity activity) {
+        record(account.getAccountNumber(), activity.type(), activity.type().balanceDelta(activity.amount()),
+                activity.epochMillis(), activity.counterpartyId());
+    }
+
+    // The sequence is taken under the account's ledger monitor so each stream is logged and
+    // applied in sequence order even when callers race on the same account
+    public LedgerEvent record(String accountNumber, ActivityType type, long delta, long epochMillis, String reference) {
+        if (accountNumber == null || type == null) {
+            throw new IllegalArgumentException("Account number and event type are required");
+        }
+        AccountLedger ledger = ledgerFor(accountNumber);
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return append(ledger, type, delta, epochMillis, reference);
+        }
+        return log.excludingCheckpoints(() -> append(ledger, type, delta, epochMillis, reference));
+    }
+
+    private LedgerEvent append(AccountLedger ledger, ActivityType type, long delta, long epochMillis, String reference) {
+        synchronized (ledger) {
+            LedgerEvent event = new LedgerEvent(lastSequence.incrementAndGet(), ledger.getAccountNumber(), type,
+                    delta, epochMillis, reference);
+            logAndApply(RecordType.LEDGER_EVENT, RecordCodec.encodeLedgerEvent(event), () -> store(ledger, event));
+            return event;
+        }
+    }
+
+    // Recovery path: events arrive with their original sequence numbers
+    public void apply(LedgerEvent event) {
+        store(ledgerFor(event.accountNumber()), event);
+        lastSequence.accumulateAndGet(event.sequence(), Math::max);
+    }
+
+    private void store(AccountLedger ledger, LedgerEvent event) {
+        ledger.append(event);
+        eventCount.increment();
+    }
+
+    private AccountLedger ledgerFor(String accountNumber) {
+        return ledgers.computeIfAbsent(accountNumber, number -> new AccountLedger(number, snapshotInterval));
+    }
+
+    public boolean hasLedger(String accountNumber) {
+        return accountNumber != null && ledgers.containsKey(accountNumber);
+    }
+
+    public long getBalance(String accountNumber) {
+        AccountLedger ledger = ledgers.get(accountNumber);
+        return ledger == null ? 0 : ledger.getBalance();
+    }
+
+    public long getBalanceAt(String accountNumber, LocalDateTime at) {
+        AccountLedger ledger = ledgers.get(accountNumber);
+        return ledger == null ? 0 : ledger.balanceAt(at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public long rebuild(String accountNumber) {
+        AccountLedger ledger = ledgers.get(accountNumber);
+        return ledger == null ? 0 : ledger.rebuild();
+    }
+
+    public List<LedgerEvent> findByAccountNumber(String accountNumber) {
+        AccountLedger ledger = ledgers.get(accountNumber);
+        return ledger == null ? Collections.emptyList() : ledger.events(0, ledger.size());
+    }
+
+    public int countByAccountNumber(String accountNumber) {
+        AccountLedger ledger = ledgers.get(accountNumber);
+        return ledger == null ? 0 : ledger.size();
+    }
+
+    public long count() {
+        return eventCount.sum();
+    }
+
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    // Streams every event account by account without materialising the whole log
+    public Iterable<LedgerEvent> events() {
+        List<AccountLedger> snapshot = new ArrayList<>(ledgers.values());
+        return () -> new Iterator<>() {
+            private final Iterator<AccountLedger> accounts = snapshot.iterator();
+            private AccountLedger current;
+            private int position;
+            private Iterator<LedgerEvent> chunk = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext()) {
+                    if (current != null && position < current.size()) {
+                        int end = Math.min(current.size(), position + EXPORT_CHUNK);
+                        chunk = current.events(position, end).iterator();
+                        position = end;
+                    } else if (accounts.hasNext()) {
+                        current = accounts.next();
+                        position = 0;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public LedgerEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.next();
+            }
+        };
+    }
+
+    // Posts an ADJUSTMENT wherever the projection disagrees with the stored balance, e.g. for
+    // accounts that predate the ledger or a change whose event was lost in a crash before it
+    // was logged. Returns the adjusted account numbers.
+    public List<String> reconcile(Collection<Account> accounts) {
+        List<String> adjusted = new ArrayList<>();
+        for (Account account : accounts) {
+            long difference = account.getBalance() - getBalance(account.getAccountNumber());
+            if (difference != 0) {
+                record(account.getAccountNumber(), ActivityType.ADJUSTMENT, difference,
+                        System.currentTimeMillis(), "RECONCILIATION");
+                adjusted.add(account.getAccountNumber());
+                LOGGER.warn("Ledger adjusted to stored balance", "accountNumber", account.getAccountNumber(),
+                        "difference", Money.format(difference));
+            }
+        }
+        return adjusted;
+    }
+
+    private void logAndApply(RecordType type, byte[] payload, Runnable change) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            change.run();
+        } else {
+            log.appendAndApply(type, payload, change);
+        }
+    }
+}
@@ -5,131 +5,182 @@ import model.loan.LoanStatus;
 import model.loan.LoanType;
 import model.user.Customer;
 import exception.LoanApprovalException;
+import repository.storage.RecordCodec;
+import repository.storage.RecordType;
+import repository.storage.WriteAheadLog;
+import util.AsyncLogger;
+import util.Money;
+import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class LoanRepository {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(LoanRepository.class);
+
+    // Both maps are guarded by the repository monitor; bulk readers copy out under it and filter outside
     private final Map<String, Loan> loans;
+    private final Map<LoanStatus, Set<Loan>> loansByStatus;
+    private WriteAheadLog writeAheadLog;
     
     public LoanRepository() {
         this.loans = new HashMap<>();
+        this.loansByStatus = new EnumMap<>(LoanStatus.class);
+        for (LoanStatus status : LoanStatus.values()) {
+            loansByStatus.put(status, new LinkedHashSet<>());
+        }
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
     }
 
     public void save(Loan loan) {
         if (loan == null) {
             throw new IllegalArgumentException("Loan cannot be null");
         }
-        loans.put(loan.getLoanId(), loan);
-        System.out.println("Loan " + loan.getLoanId() + " saved successfully.");
+        logAndApply(RecordType.LOAN_SAVE, RecordCodec.encodeLoan(loan), () -> track(loan));
+        LOGGER.debug("Loan saved", "loanId", loan.getLoanId());
     }
 
-    public Loan findById(String loanId) {
+    public synchronized Loan findById(String loanId) {
         return loans.get(loanId);
     }
 
-    public List<Loan> findAll() {
+    public synchronized List<Loan> findAll() {
         return new ArrayList<>(loans.values());
     }
 
     public List<Loan> findByCustomer(Customer customer) {
-        return loans.values().stream()
+        return findAll().stream()
                 .filter(l -> l.getCustomer().equals(customer))
                 .toList();
     }
 
-    public List<Loan> findByStatus(LoanStatus status) {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == status)
-                .toList();
+    public synchronized List<Loan> findByStatus(LoanStatus status) {
+        return new ArrayList<>(loansByStatus.get(status));
     }
 
     public List<Loan> findActiveLoan() {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == LoanStatus.ACTIVE)
-                .toList();
+        return findByStatus(LoanStatus.ACTIVE);
     }
 
     public List<Loan> findPendingLoans() {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == LoanStatus.PENDING)
-                .toList();
+        return findByStatus(LoanStatus.PENDING);
     }
 
     public List<Loan> findApprovedLoans() {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == LoanStatus.APPROVED)
-                .toList();
+        return findByStatus(LoanStatus.APPROVED);
     }
 
-    public List<Loan> findLoansAbove(double threshold) {
-        return loans.values().stream()
+    public List<Loan> findLoansAbove(long threshold) {
+        return findAll().stream()
                 .filter(l -> l.getPrincipal() > threshold)
                 .toList();
     }
 
-    public List<Loan> findLoansBelow(double threshold) {
-        return loans.values().stream()
+    public List<Loan> findLoansBelow(long threshold) {
+        return findAll().stream()
                 .filter(l -> l.getPrincipal() < threshold)
                 .toList();
     }
 
     public List<Loan> findLoansWithRemainingBalance() {
-        return loans.values().stream()
+        return findAll().stream()
                 .filter(l -> l.getRemainingBalance() > 0)
                 .toList();
     }
 
     public List<Loan> findDefaultedLoans() {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == LoanStatus.DEFAULT)
-                .toList();
+        return findByStatus(LoanStatus.DEFAULT);
     }
 
-    public double getTotalOutstandingPrincipal() {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == LoanStatus.ACTIVE)
-                .mapToDouble(Loan::getRemainingBalance)
-                .sum();
+    public long getTotalOutstandingPrincipal() {
+        return findByStatus(LoanStatus.ACTIVE).stream()
+                .mapToLong(Loan::getRemainingBalance)
+                .reduce(0L, Money::add);
     }
 
-    public double getAverageLoanAmount() {
-        return loans.values().stream()
-                .mapToDouble(Loan::getPrincipal)
-                .average()
-                .orElse(0.0);
+    public long getAverageLoanAmount() {
+        List<Loan> all = findAll();
+        if (all.isEmpty()) {
+            return 0;
+        }
+        long total = all.stream().mapToLong(Loan::getPrincipal).reduce(0L, Money::add);
+        return Money.divide(total, all.size(), RoundingMode.HALF_EVEN);
     }
 
-    public long countByStatus(LoanStatus status) {
-        return loans.values().stream()
-                .filter(l -> l.getStatus() == status)
-                .count();
+    public synchronized long countByStatus(LoanStatus status) {
+        return loansByStatus.get(status).size();
     }
 
     public void update(Loan loan) {
-        if (loan != null && loans.containsKey(loan.getLoanId())) {
-            loans.put(loan.getLoanId(), loan);
-            System.out.println("Loan " + loan.getLoanId() + " updated successfully.");
+        if (loan != null && exists(loan.getLoanId())) {
+            logAndApply(RecordType.LOAN_SAVE, RecordCodec.encodeLoan(loan), () -> track(loan));
+            LOGGER.debug("Loan updated", "loanId", loan.getLoanId());
         }
     }
 
     public void delete(String loanId) {
-        if (loans.remove(loanId) != null) {
-            System.out.println("Loan " + loanId + " deleted successfully.");
+        if (loanId != null && exists(loanId)) {
+            logAndApply(RecordType.LOAN_DELETE, RecordCodec.encodeId(loanId), () -> untrack(loanId));
+            LOGGER.debug("Loan deleted", "loanId", loanId);
         }
     }
 
-    public boolean exists(String loanId) {
+    public synchronized boolean exists(String loanId) {
         return loans.containsKey(loanId);
     }
 
-    public int count() {
+    public synchronized int count() {
         return loans.size();
     }
 
     public void deleteAll() {
+        logAndApply(RecordType.LOAN_CLEAR, new byte[0], this::clear);
+        LOGGER.info("All loans deleted");
+    }
+
+    private synchronized void clear() {
+        loans.values().forEach(l -> l.setStatusListener(null));
         loans.clear();
-        System.out.println("All loans deleted.");
+        loansByStatus.values().forEach(Set::clear);
+    }
+
+    private synchronized void track(Loan loan) {
+        Loan previous = loans.put(loan.getLoanId(), loan);
+        if (previous != null && previous != loan) {
+            previous.setStatusListener(null);
+            loansByStatus.get(previous.getStatus()).remove(previous);
+        }
+        loansByStatus.get(loan.getStatus()).add(loan);
+        loan.setStatusListener(this::onStatusChange);
+    }
+
+    private synchronized Loan untrack(String loanId) {
+        Loan removed = loans.remove(loanId);
+        if (removed != null) {
+            removed.setStatusListener(null);
+            loansByStatus.get(removed.getStatus()).remove(removed);
+        }
+        return removed;
+    }
+
+    private synchronized void onStatusChange(Loan loan, LoanStatus previousStatus, LoanStatus newStatus) {
+        loansByStatus.get(previousStatus).remove(loan);
+        loansByStatus.get(newStatus).add(loan);
+    }
+
+    private void logAndApply(RecordType type, byte[] payload, Runnable change) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            change.run();
+        } else {
+            log.appendAndApply(type, payload, change);
+        }
     }
 }
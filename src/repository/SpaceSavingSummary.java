@@ -0,0 +1,71 @@
+package repository;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Weighted Space-Saving: at most capacity keys are tracked. A new key evicts the lightest one and
+// inherits its weight as overestimate error, so any key holding more than total / capacity
+// of the weight is guaranteed to be present.
+// Not thread-safe.
+final class SpaceSavingSummary {
+    private static final Comparator<Counter> BY_WEIGHT =
+            Comparator.comparingLong((Counter c) -> c.weight).thenComparing(c -> c.key);
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final TreeSet<Counter> byWeight = new TreeSet<>(BY_WEIGHT);
+
+    SpaceSavingSummary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void offer(String key, long weight) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0);
+            } else {
+                Counter lightest = byWeight.pollFirst();
+                counters.remove(lightest.key);
+                counter = new Counter(key, lightest.weight);
+            }
+            counters.put(key, counter);
+        } else {
+            byWeight.remove(counter);
+        }
+        counter.weight += weight;
+        byWeight.add(counter);
+    }
+
+    // Adds this summary's estimates and errors into the running totals keyed by account
+    void addTo(Map<String, long[]> totals) {
+        for (Counter counter : counters.values()) {
+            long[] total = totals.computeIfAbsent(counter.key, k -> new long[2]);
+            total[0] += counter.weight;
+            total[1] += counter.error;
+        }
+    }
+
+    void clear() {
+        counters.clear();
+        byWeight.clear();
+    }
+
+    private static final class Counter {
+        private final String key;
+        private final long error;
+        private long weight;
+
+        Counter(String key, long error) {
+            this.key = key;
+            this.error = error;
+            this.weight = error;
+        }
+    }
+}
@@ -1,32 +1,124 @@
 package repository;
 
+import model.transaction.AccountRanking;
+import model.transaction.ActivityMetric;
+import model.transaction.ActivityWindow;
+import model.transaction.CashFlowSummary;
+import model.transaction.PageDirection;
 import model.transaction.Transaction;
+import model.transaction.TransactionPage;
 import model.transaction.TransactionType;
 import model.account.Account;
+import repository.storage.LogRecord;
+import repository.storage.RecordCodec;
+import repository.storage.RecordType;
+import repository.storage.WriteAheadLog;
+import util.AmountHistogram;
+import util.AsyncLogger;
+import util.Money;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TransactionRepository {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(TransactionRepository.class);
+
+    private static final Comparator<Transaction> BY_TIMESTAMP =
+            Comparator.comparing(Transaction::timestamp).thenComparing(Transaction::transactionId);
+
     private final Map<String, Transaction> transactions;
+    private WriteAheadLog writeAheadLog;
+    private final Map<String, NavigableSet<Transaction>> transactionsByAccount;
+    private final NavigableMap<LocalDateTime, List<Transaction>> transactionsByTimestamp;
+    private final Map<TransactionType, LongAdder> countsByType;
+    private final Map<TransactionType, LongAdder> amountsByType;
+    private final LongAdder totalCount;
+    private final LongAdder totalAmount;
+    private final CashFlowRollup cashFlow;
+    private final AmountDistribution amountDistribution;
+    private final HeavyHitters heavyHitters;
+    private final Map<String, Transaction> deferredIndexing;
     
     public TransactionRepository() {
-        this.transactions = new HashMap<>();
+        this.transactions = new ConcurrentHashMap<>();
+        this.transactionsByAccount = new HashMap<>();
+        this.transactionsByTimestamp = new TreeMap<>();
+        this.countsByType = new EnumMap<>(TransactionType.class);
+        this.amountsByType = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            countsByType.put(type, new LongAdder());
+            amountsByType.put(type, new LongAdder());
+        }
+        this.totalCount = new LongAdder();
+        this.totalAmount = new LongAdder();
+        this.cashFlow = new CashFlowRollup();
+        this.amountDistribution = new AmountDistribution();
+        this.heavyHitters = new HeavyHitters();
+        this.deferredIndexing = new HashMap<>();
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
     }
 
     public void save(Transaction transaction) {
         if (transaction == null) {
             throw new IllegalArgumentException("Transaction cannot be null");
         }
-        transactions.put(transaction.transactionId(), transaction);
-        System.out.println("Transaction " + transaction.transactionId() + " saved successfully.");
+        logAndApply(RecordType.TRANSACTION_SAVE, RecordCodec.encodeTransaction(transaction), () -> store(transaction));
+        LOGGER.debug("Transaction saved", "transactionId", transaction.transactionId());
+    }
+
+    // Bulk load path: the batch is logged as one record and only lands in the primary map, so
+    // findById and exists see it at once while the secondary indexes wait for finishBulkLoad
+    public void saveAllDeferringIndexes(List<Transaction> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        List<LogRecord> records = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            records.add(new LogRecord(RecordType.TRANSACTION_SAVE, RecordCodec.encodeTransaction(transaction)));
+        }
+        logAndApply(RecordType.BATCH, RecordCodec.encodeBatch(records), () -> storeDeferred(batch));
+        LOGGER.debug("Transactions bulk saved", "count", batch.size());
+    }
+
+    // Indexes everything saved since the last call in one pass, in timestamp order so each
+    // per-account set and the timestamp map grow at their tail
+    public synchronized int finishBulkLoad() {
+        if (deferredIndexing.isEmpty()) {
+            return 0;
+        }
+        List<Transaction> pending = new ArrayList<>(deferredIndexing.values());
+        deferredIndexing.clear();
+        pending.sort(BY_TIMESTAMP);
+        for (Transaction transaction : pending) {
+            heavyHitters.record(transaction.account().getAccountNumber(), transaction.amount(),
+                    transaction.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            index(transaction);
+        }
+        LOGGER.info("Bulk load indexed", "transactions", pending.size());
+        return pending.size();
     }
 
     public Transaction findById(String transactionId) {
-        return transactions.get(transactionId);
+        return transactionId == null ? null : transactions.get(transactionId);
     }
 
     public List<Transaction> findAll() {
@@ -34,9 +126,68 @@ public class TransactionRepository {
     }
 
     public List<Transaction> findByAccount(Account account) {
-        return transactions.values().stream()
-                .filter(t -> t.account().equals(account))
-                .toList();
+        if (account == null) {
+            return List.of();
+        }
+        return findByAccountNumber(account.getAccountNumber());
+    }
+
+    public synchronized List<Transaction> findByAccountNumber(String accountNumber) {
+        NavigableSet<Transaction> accountTransactions = transactionsByAccount.get(accountNumber);
+        if (accountTransactions == null) {
+            return List.of();
+        }
+        return new ArrayList<>(accountTransactions);
+    }
+
+    // Keyset pagination over the per-account ordered set: the cursor is the (timestamp, id) key of
+    // the last row served, so every page is one O(log n) seek plus limit steps however deep it is
+    public synchronized TransactionPage findPageByAccountNumber(String accountNumber, String afterCursor,
+                                                                int limit, PageDirection direction) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        NavigableSet<Transaction> accountTransactions = transactionsByAccount.get(accountNumber);
+        if (accountTransactions == null) {
+            return new TransactionPage(List.of(), null, false);
+        }
+        NavigableSet<Transaction> ordered = direction == PageDirection.NEWEST_FIRST
+                ? accountTransactions.descendingSet()
+                : accountTransactions;
+        if (afterCursor != null) {
+            ordered = ordered.tailSet(cursorProbe(afterCursor, accountTransactions.first()), false);
+        }
+        // size() on a sub-view walks it, so the page is sized from the limit alone
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Transaction> iterator = ordered.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        boolean hasMore = iterator.hasNext();
+        String nextCursor = page.isEmpty() ? afterCursor : encodeCursor(page.get(page.size() - 1));
+        return new TransactionPage(page, nextCursor, hasMore);
+    }
+
+    private static String encodeCursor(Transaction transaction) {
+        String key = transaction.timestamp() + "|" + transaction.transactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Only the comparator's fields matter; the rest is borrowed from any row of the same account
+    private static Transaction cursorProbe(String cursor, Transaction template) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return new Transaction(key.substring(separator + 1), template.account(), template.amount(),
+                    template.type(), LocalDateTime.parse(key.substring(0, separator)), null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    public synchronized int countByAccountNumber(String accountNumber) {
+        NavigableSet<Transaction> accountTransactions = transactionsByAccount.get(accountNumber);
+        return accountTransactions == null ? 0 : accountTransactions.size();
     }
 
     public List<Transaction> findByType(TransactionType type) {
@@ -63,61 +214,91 @@ public class TransactionRepository {
                 .toList();
     }
 
-    public List<Transaction> findTransactionsAbove(double threshold) {
+    public List<Transaction> findTransactionsAbove(long threshold) {
         return transactions.values().stream()
                 .filter(t -> t.amount() > threshold)
                 .toList();
     }
 
-    public List<Transaction> findTransactionsBelow(double threshold) {
+    public List<Transaction> findTransactionsBelow(long threshold) {
         return transactions.values().stream()
                 .filter(t -> t.amount() < threshold)
                 .toList();
     }
 
     public List<Transaction> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        return transactions.values().stream()
-                .filter(t -> {
-                    LocalDate txDate = t.timestamp().toLocalDate();
-                    return !txDate.isBefore(startDate) && !txDate.isAfter(endDate);
-                })
-                .toList();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        return findByTimestampRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
     }
 
     public List<Transaction> findTransactionsByDate(LocalDate date) {
-        return transactions.values().stream()
-                .filter(t -> t.timestamp().toLocalDate().equals(date))
-                .toList();
+        return findByDateRange(date, date);
     }
 
-    public double getTotalTransactionAmount() {
-        return transactions.values().stream()
-                .mapToDouble(Transaction::amount) // Method reference
-                .sum();
+    public synchronized List<Transaction> findByTimestampRange(LocalDateTime from, LocalDateTime to) {
+        List<Transaction> result = new ArrayList<>();
+        for (List<Transaction> bucket : transactionsByTimestamp.subMap(from, true, to, false).values()) {
+            result.addAll(bucket);
+        }
+        return result;
     }
 
-    public double getAverageTransactionAmount() {
-        return transactions.values().stream()
-                .mapToDouble(Transaction::amount)
-                .average()
-                .orElse(0.0);
+    public long getTotalTransactionAmount() {
+        return totalAmount.sum();
+    }
+
+    public long getAverageTransactionAmount() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : Money.divide(totalAmount.sum(), count, RoundingMode.HALF_EVEN);
+    }
+
+    public synchronized CashFlowSummary getCashFlow(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Cash flow window must have from <= to");
+        }
+        return cashFlow.summarise(from, to);
+    }
+
+    // Returns a copy; a null type covers every type and null days mean all time
+    public synchronized AmountHistogram getAmountHistogram(TransactionType type, LocalDate from, LocalDate to) {
+        return amountDistribution.histogram(type, from, to);
+    }
+
+    // Approximate ranking over the sliding window ending now; see HeavyHitters for the error bounds
+    public List<AccountRanking> findTopAccounts(ActivityWindow window, ActivityMetric metric, int limit) {
+        if (window == null || metric == null || limit <= 0) {
+            throw new IllegalArgumentException("Window, metric and a positive limit are required");
+        }
+        return heavyHitters.top(window, metric, limit, System.currentTimeMillis());
+    }
+
+    public long countByType(TransactionType type) {
+        return countsByType.get(type).sum();
+    }
+
+    public long getTotalAmountByType(TransactionType type) {
+        return amountsByType.get(type).sum();
     }
 
     public void update(Transaction transaction) {
         if (transaction != null && transactions.containsKey(transaction.transactionId())) {
-            transactions.put(transaction.transactionId(), transaction);
-            System.out.println("Transaction " + transaction.transactionId() + " updated successfully.");
+            logAndApply(RecordType.TRANSACTION_SAVE, RecordCodec.encodeTransaction(transaction), () -> store(transaction));
+            LOGGER.debug("Transaction updated", "transactionId", transaction.transactionId());
         }
     }
 
     public void delete(String transactionId) {
-        if (transactions.remove(transactionId) != null) {
-            System.out.println("Transaction " + transactionId + " deleted successfully.");
+        if (transactionId == null || !transactions.containsKey(transactionId)) {
+            return;
         }
+        logAndApply(RecordType.TRANSACTION_DELETE, RecordCodec.encodeId(transactionId), () -> remove(transactionId));
+        LOGGER.debug("Transaction deleted", "transactionId", transactionId);
     }
 
     public boolean exists(String transactionId) {
-        return transactions.containsKey(transactionId);
+        return transactionId != null && transactions.containsKey(transactionId);
     }
 
     public int count() {
@@ -125,7 +306,104 @@ public class TransactionRepository {
     }
 
     public void deleteAll() {
+        logAndApply(RecordType.TRANSACTION_CLEAR, new byte[0], this::clear);
+        LOGGER.info("All transactions deleted");
+    }
+
+    private synchronized void store(Transaction transaction) {
+        Transaction previous = transactions.put(transaction.transactionId(), transaction);
+        if (previous != null) {
+            unindexOrUndefer(previous);
+        } else {
+            // Space-Saving cannot take weight back out, so only first saves count as activity
+            heavyHitters.record(transaction.account().getAccountNumber(), transaction.amount(),
+                    transaction.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        index(transaction);
+    }
+
+    private synchronized void remove(String transactionId) {
+        Transaction removed = transactions.remove(transactionId);
+        if (removed != null) {
+            unindexOrUndefer(removed);
+        }
+    }
+
+    private synchronized void storeDeferred(List<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            Transaction previous = transactions.put(transaction.transactionId(), transaction);
+            if (previous != null) {
+                unindexOrUndefer(previous);
+            }
+            deferredIndexing.put(transaction.transactionId(), transaction);
+        }
+    }
+
+    private void unindexOrUndefer(Transaction transaction) {
+        if (deferredIndexing.remove(transaction.transactionId()) == null) {
+            unindex(transaction);
+        }
+    }
+
+    private synchronized void clear() {
         transactions.clear();
-        System.out.println("All transactions deleted.");
+        deferredIndexing.clear();
+        transactionsByAccount.clear();
+        transactionsByTimestamp.clear();
+        countsByType.values().forEach(LongAdder::reset);
+        amountsByType.values().forEach(LongAdder::reset);
+        totalCount.reset();
+        totalAmount.reset();
+        cashFlow.clear();
+        amountDistribution.clear();
+        heavyHitters.clear();
+    }
+
+    private void index(Transaction transaction) {
+        transactionsByAccount
+                .computeIfAbsent(transaction.account().getAccountNumber(), k -> new TreeSet<>(BY_TIMESTAMP))
+                .add(transaction);
+        transactionsByTimestamp
+                .computeIfAbsent(transaction.timestamp(), k -> new ArrayList<>(1))
+                .add(transaction);
+        countsByType.get(transaction.type()).increment();
+        amountsByType.get(transaction.type()).add(transaction.amount());
+        totalCount.increment();
+        totalAmount.add(transaction.amount());
+        cashFlow.add(transaction);
+        amountDistribution.add(transaction);
+    }
+
+    private void unindex(Transaction transaction) {
+        String accountNumber = transaction.account().getAccountNumber();
+        NavigableSet<Transaction> accountTransactions = transactionsByAccount.get(accountNumber);
+        if (accountTransactions != null) {
+            accountTransactions.remove(transaction);
+            if (accountTransactions.isEmpty()) {
+                transactionsByAccount.remove(accountNumber);
+            }
+        }
+        List<Transaction> bucket = transactionsByTimestamp.get(transaction.timestamp());
+        if (bucket != null) {
+            bucket.remove(transaction);
+            if (bucket.isEmpty()) {
+                transactionsByTimestamp.remove(transaction.timestamp());
+            }
+        }
+        countsByType.get(transaction.type()).decrement();
+        amountsByType.get(transaction.type()).add(-transaction.amount());
+        totalCount.decrement();
+        totalAmount.add(-transaction.amount());
+        cashFlow.remove(transaction);
+        amountDistribution.remove(transaction);
+    }
+
+    private void logAndApply(RecordType type, byte[] payload, Runnable change) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            change.run();
+        } else {
+            log.appendAndApply(type, payload, change);
+        }
     }
 }
@@ -2,24 +2,40 @@ package repository;
 
 import model.user.Customer;
 import model.user.User;
+import repository.storage.RecordCodec;
+import repository.storage.RecordType;
+import repository.storage.WriteAheadLog;
+import util.AsyncLogger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class UserRepository {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(UserRepository.class);
+
     private final Map<String, User> users;
+    private final Map<String, List<User>> usersByName;
+    private final Map<String, List<User>> usersByEmail;
+    private WriteAheadLog writeAheadLog;
     
     public UserRepository() {
         this.users = new HashMap<>();
+        this.usersByName = new HashMap<>();
+        this.usersByEmail = new HashMap<>();
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
     }
 
     public void save(User user) {
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
-        users.put(user.getUserId(), user);
-        System.out.println("User " + user.getUserId() + " saved successfully.");
+        logAndApply(RecordType.USER_SAVE, RecordCodec.encodeUser(user), () -> replace(user));
+        LOGGER.debug("User saved", "userId", user.getUserId());
     }
 
     public User findById(String userId) {
@@ -31,15 +47,11 @@ public class UserRepository {
     }
 
     public List<User> findByName(String name) {
-        return users.values().stream()
-                .filter(u -> u.getName().equalsIgnoreCase(name))
-                .toList();
+        return lookup(usersByName, name);
     }
 
     public List<User> findByEmail(String email) {
-        return users.values().stream()
-                .filter(u -> u.getEmail() != null && u.getEmail().equalsIgnoreCase(email))
-                .toList();
+        return lookup(usersByEmail, email);
     }
 
     public List<Customer> findAllCustomers() {
@@ -51,14 +63,20 @@ public class UserRepository {
 
     public void update(User user) {
         if (user != null && users.containsKey(user.getUserId())) {
-            users.put(user.getUserId(), user);
-            System.out.println("User " + user.getUserId() + " updated successfully.");
+            logAndApply(RecordType.USER_SAVE, RecordCodec.encodeUser(user), () -> replace(user));
+            LOGGER.debug("User updated", "userId", user.getUserId());
         }
     }
 
     public void delete(String userId) {
-        if (users.remove(userId) != null) {
-            System.out.println("User " + userId + " deleted successfully.");
+        if (userId != null && users.containsKey(userId)) {
+            logAndApply(RecordType.USER_DELETE, RecordCodec.encodeId(userId), () -> {
+                User removed = users.remove(userId);
+                if (removed != null) {
+                    unindex(removed);
+                }
+            });
+            LOGGER.debug("User deleted", "userId", userId);
         }
     }
 
@@ -71,7 +89,66 @@ public class UserRepository {
     }
 
     public void deleteAll() {
-        users.clear();
-        System.out.println("All users deleted.");
+        logAndApply(RecordType.USER_CLEAR, new byte[0], () -> {
+            users.clear();
+            usersByName.clear();
+            usersByEmail.clear();
+        });
+        LOGGER.info("All users deleted");
+    }
+
+    private void replace(User user) {
+        User previous = users.put(user.getUserId(), user);
+        if (previous != null) {
+            unindex(previous);
+        }
+        addToIndex(usersByName, user.getName(), user);
+        addToIndex(usersByEmail, user.getEmail(), user);
+    }
+
+    private void unindex(User user) {
+        removeFromIndex(usersByName, user.getName(), user);
+        removeFromIndex(usersByEmail, user.getEmail(), user);
+    }
+
+    private static List<User> lookup(Map<String, List<User>> index, String key) {
+        if (key == null) {
+            return List.of();
+        }
+        List<User> matches = index.get(fold(key));
+        return matches == null ? List.of() : List.copyOf(matches);
+    }
+
+    private static void addToIndex(Map<String, List<User>> index, String key, User user) {
+        if (key != null) {
+            index.computeIfAbsent(fold(key), k -> new ArrayList<>(1)).add(user);
+        }
+    }
+
+    private static void removeFromIndex(Map<String, List<User>> index, String key, User user) {
+        if (key == null) {
+            return;
+        }
+        String folded = fold(key);
+        List<User> matches = index.get(folded);
+        if (matches != null) {
+            matches.remove(user);
+            if (matches.isEmpty()) {
+                index.remove(folded);
+            }
+        }
+    }
+
+    private static String fold(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private void logAndApply(RecordType type, byte[] payload, Runnable change) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            change.run();
+        } else {
+            log.appendAndApply(type, payload, change);
+        }
     }
 }
@@ -0,0 +1,28 @@
+package repository.storage;
+
+public enum FsyncPolicy {
+    PER_OPERATION("Every record is forced to disk before append returns"),
+    GROUP_COMMIT("Concurrent records share one fsync and callers wait for their batch"),
+    OS_MANAGED("Flushing is left to the operating system page cache");
+
+    private final String description;
+
+    FsyncPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public static FsyncPolicy parse(String value, FsyncPolicy fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
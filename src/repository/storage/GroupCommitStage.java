@@ -0,0 +1,267 @@
+package repository.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class GroupCommitStage implements AutoCloseable {
+    private static final int LATENCY_SAMPLES = 8192;
+
+    private final FileChannel channel;
+    private final int maxBatchRecords;
+    private final long maxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Thread writer;
+
+    private List<ByteBuffer> buffer = new ArrayList<>();
+    private long[] enqueuedAt = new long[16];
+    private Outcome outcome = new Outcome();
+    private long firstPendingNanos;
+    // Set once the log could not be restored to its last durable position; nothing is accepted after
+    private IOException failure;
+    private boolean closed;
+
+    private final long[] latencySamples = new long[LATENCY_SAMPLES];
+    private long latencySampleCount;
+    private long fsyncCount;
+    private long committedRecords;
+
+    public GroupCommitStage(FileChannel channel, int maxBatchRecords, long maxWaitMillis) {
+        if (maxBatchRecords <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (maxWaitMillis <= 0) {
+            throw new IllegalArgumentException("Max wait must be positive");
+        }
+        this.channel = channel;
+        this.maxBatchRecords = maxBatchRecords;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.writer = new Thread(this::runWriter, "wal-group-commit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void submit(ByteBuffer frame) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Group commit stage is closed");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log failed and no longer accepts records", failure);
+            }
+            if (buffer.isEmpty()) {
+                firstPendingNanos = System.nanoTime();
+            }
+            if (buffer.size() == enqueuedAt.length) {
+                enqueuedAt = Arrays.copyOf(enqueuedAt, enqueuedAt.length * 2);
+            }
+            enqueuedAt[buffer.size()] = System.nanoTime();
+            buffer.add(frame);
+            Outcome batch = outcome;
+            if (buffer.size() == 1 || buffer.size() >= maxBatchRecords) {
+                pending.signal();
+            }
+            while (!batch.done) {
+                durable.awaitUninterruptibly();
+            }
+            if (batch.error != null) {
+                throw new UncheckedIOException("Group commit failed", batch.error);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        long durablePosition;
+        try {
+            durablePosition = channel.position();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        while (true) {
+            List<ByteBuffer> batch;
+            long[] batchEnqueuedAt;
+            Outcome batchOutcome;
+            lock.lock();
+            try {
+                while (buffer.isEmpty() && !closed) {
+                    pending.awaitUninterruptibly();
+                }
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                long deadline = firstPendingNanos + maxWaitNanos;
+                long remaining;
+                while (buffer.size() < maxBatchRecords && !closed
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        pending.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                batch = buffer;
+                batchEnqueuedAt = enqueuedAt;
+                batchOutcome = outcome;
+                buffer = new ArrayList<>(Math.max(16, batch.size()));
+                enqueuedAt = new long[Math.max(16, batch.size())];
+                outcome = new Outcome();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer[] frames = batch.toArray(new ByteBuffer[0]);
+                long remainingBytes = 0;
+                for (ByteBuffer frame : frames) {
+                    remainingBytes += frame.remaining();
+                }
+                while (remainingBytes > 0) {
+                    remainingBytes -= channel.write(frames);
+                }
+                channel.force(false);
+                durablePosition = channel.position();
+            } catch (IOException e) {
+                error = e;
+            }
+
+            // A partial write may have left a torn frame; cut it off so later batches do not land
+            // behind it. If even that fails the stage stops for good rather than risk the log.
+            IOException resetError = null;
+            if (error != null) {
+                try {
+                    channel.truncate(durablePosition);
+                    channel.position(durablePosition);
+                    channel.force(true);
+                } catch (IOException e) {
+                    e.addSuppressed(error);
+                    resetError = e;
+                }
+            }
+
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                batchOutcome.done = true;
+                if (error != null) {
+                    batchOutcome.error = error;
+                } else {
+                    fsyncCount++;
+                    committedRecords += batch.size();
+                    for (int i = 0; i < batch.size(); i++) {
+                        latencySamples[(int) (latencySampleCount++ % LATENCY_SAMPLES)] = now - batchEnqueuedAt[i];
+                    }
+                }
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (resetError != null) {
+                fail(resetError);
+                return;
+            }
+        }
+    }
+
+    // Fails everything still queued and refuses new submissions
+    private void fail(IOException error) {
+        lock.lock();
+        try {
+            failure = error;
+            outcome.done = true;
+            outcome.error = error;
+            buffer = new ArrayList<>();
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public IOException getFailure() {
+        lock.lock();
+        try {
+            return failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public GroupCommitStats getStats() {
+        long[] samples;
+        lock.lock();
+        try {
+            int size = (int) Math.min(latencySampleCount, LATENCY_SAMPLES);
+            samples = Arrays.copyOf(latencySamples, size);
+            if (samples.length == 0) {
+                return new GroupCommitStats(fsyncCount, committedRecords, 0, 0);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(samples);
+        return new GroupCommitStats(
+                fsyncCount,
+                committedRecords,
+                samples[percentileIndex(samples.length, 0.50)] / 1_000,
+                samples[percentileIndex(samples.length, 0.99)] / 1_000
+        );
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Guarded by lock; one per batch so each waiter learns how its own batch ended
+    private static final class Outcome {
+        private boolean done;
+        private IOException error;
+    }
+
+    public record GroupCommitStats(
+            long fsyncCount,
+            long committedRecords,
+            long p50LatencyMicros,
+            long p99LatencyMicros
+    ) {
+        public double recordsPerFsync() {
+            return fsyncCount == 0 ? 0.0 : (double) committedRecords / fsyncCount;
+        }
+
+        public String getSummary() {
+            return String.format(
+                    "Fsyncs: %d | Records: %d | Records/fsync: %.1f | p50: %d us | p99: %d us",
+                    fsyncCount, committedRecords, recordsPerFsync(), p50LatencyMicros, p99LatencyMicros
+            );
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package repository.storage;
+
+public record LogRecord(RecordType type, byte[] payload) {
+    public LogRecord {
+        if (type == null) {
+            throw new IllegalArgumentException("Record type cannot be null");
+        }
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package repository.storage;
+
+import model.account.*;
+import model.ledger.LedgerEvent;
+import model.loan.*;
+import model.transaction.Transaction;
+import model.transaction.TransactionType;
+import model.user.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class RecordCodec {
+
+    private static final byte CUSTOMER = 0;
+    private static final byte TELLER = 1;
+    private static final byte MANAGER = 2;
+    private static final byte ADMINISTRATOR = 3;
+
+    private static final byte SAVINGS = 0;
+    private static final byte CURRENT = 1;
+    private static final byte FIXED_DEPOSIT = 2;
+    private static final byte RECURRING_DEPOSIT = 3;
+
+    private static final byte PERSONAL_LOAN = 0;
+    private static final byte HOME_LOAN = 1;
+    private static final byte AUTO_LOAN = 2;
+    private static final byte EDUCATION_LOAN = 3;
+    private static final byte BUSINESS_LOAN = 4;
+
+    private static final LoanStatus[] LOAN_STATUSES = LoanStatus.values();
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    private RecordCodec() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    public static byte[] encodeId(String id) {
+        return encode(out -> out.writeUTF(id));
+    }
+
+    public static String decodeId(byte[] payload) {
+        return decode(payload, in -> in.readUTF());
+    }
+
+    public static byte[] encodeBatch(List<LogRecord> records) {
+        return encode(out -> {
+            out.writeInt(records.size());
+            for (LogRecord record : records) {
+                out.writeByte(record.type().getCode());
+                out.writeInt(record.payload().length);
+                out.write(record.payload());
+            }
+        });
+    }
+
+    public static List<LogRecord> decodeBatch(byte[] payload) {
+        return decode(payload, in -> {
+            int count = in.readInt();
+            List<LogRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                RecordType type = RecordType.fromCode(in.readByte());
+                byte[] nested = new byte[in.readInt()];
+                in.readFully(nested);
+                records.add(new LogRecord(type, nested));
+            }
+            return records;
+        });
+    }
+
+    public static byte[] encodeUser(User user) {
+        return encode(out -> {
+            switch (user) {
+                case Customer c -> out.writeByte(CUSTOMER);
+                case Teller t -> out.writeByte(TELLER);
+                case BankManager m -> out.writeByte(MANAGER);
+                case Administrator a -> out.writeByte(ADMINISTRATOR);
+            }
+            out.writeUTF(user.getUserId());
+            out.writeUTF(user.getName());
+            writeNullable(out, user.getEmail());
+            out.writeUTF(user.getPassword());
+            out.writeLong(user.getCreatedDate().toEpochDay());
+            switch (user) {
+                case Customer c -> {
+                    writeNullable(out, c.getPhoneNumber());
+                    writeNullable(out, c.getAddress());
+                }
+                case Teller t -> out.writeUTF(t.getBranchCode());
+                case BankManager m -> out.writeUTF(m.getBranch());
+                case Administrator a -> { }
+            }
+        });
+    }
+
+    public static User decodeUser(byte[] payload) {
+        return decode(payload, in -> {
+            byte kind = in.readByte();
+            String userId = in.readUTF();
+            String name = in.readUTF();
+            String email = readNullable(in);
+            String passwordHash = in.readUTF();
+            LocalDate createdDate = LocalDate.ofEpochDay(in.readLong());
+            User user = switch (kind) {
+                case CUSTOMER -> new Customer(userId, name, email, "", readNullable(in), readNullable(in));
+                case TELLER -> new Teller(userId, name, email, "", in.readUTF());
+                case MANAGER -> new BankManager(userId, name, email, "", in.readUTF());
+                case ADMINISTRATOR -> new Administrator(userId, name, email, "");
+                default -> throw new IOException("Unknown user kind: " + kind);
+            };
+            user.restoreCredentials(passwordHash, createdDate);
+            return user;
+        });
+    }
+
+    public static byte[] encodeAccount(Account account) {
+        return encode(out -> {
+            byte kind = switch (account) {
+                case SavingsAccount s -> SAVINGS;
+                case CurrentAccount c -> CURRENT;
+                case FixedDepositAccount f -> FIXED_DEPOSIT;
+                case RecurringDepositAccount r -> RECURRING_DEPOSIT;
+                default -> throw new IllegalArgumentException("Unsupported account type: " + account.getAccountType());
+            };
+            out.writeByte(kind);
+            out.writeUTF(account.getAccountNumber());
+            out.writeUTF(account.getCustomer().getUserId());
+            out.writeLong(account.getBalance());
+            out.writeLong(account.getOpeningDate().toEpochDay());
+            out.writeBoolean(account.isActive());
+            switch (account) {
+                case SavingsAccount s -> out.writeDouble(s.getInterestRate());
+                case CurrentAccount c -> out.writeLong(c.getOverdraftLimit());
+                case FixedDepositAccount f -> {
+                    out.writeDouble(f.getInterestRate());
+                    out.writeInt(f.getTenureMonths());
+                    out.writeInt(f.getMonthsCompleted());
+                }
+                case RecurringDepositAccount r -> {
+                    out.writeLong(r.getMonthlyDeposit());
+                    out.writeDouble(r.getInterestRate());
+                    out.writeInt(r.getTenureMonths());
+                    out.writeInt(r.getMonthsCompleted());
+                }
+                default -> { }
+            }
+        });
+    }
+
+    public static String decodeAccountNumber(byte[] payload) {
+        return decode(payload, in -> {
+            in.readByte();
+            return in.readUTF();
+        });
+    }
+
+    public static Account decodeAccount(byte[] payload, Function<String, Customer> customers, Account existing) {
+        return decode(payload, in -> {
+            byte kind = in.readByte();
+            String accountNumber = in.readUTF();
+            String customerId = in.readUTF();
+            long balance = in.readLong();
+            LocalDate openingDate = LocalDate.ofEpochDay(in.readLong());
+            boolean active = in.readBoolean();
+
+            Account account = existing;
+            if (account == null) {
+                Customer customer = customers.apply(customerId);
+                if (customer == null) {
+                    throw new IOException("Unknown customer " + customerId + " for account " + accountNumber);
+                }
+                account = switch (kind) {
+                    case SAVINGS -> new SavingsAccount(accountNumber, customer, balance, in.readDouble());
+                    case CURRENT -> new CurrentAccount(accountNumber, customer, balance, in.readLong());
+                    case FIXED_DEPOSIT -> new FixedDepositAccount(accountNumber, customer, balance,
+                            in.readDouble(), in.readInt());
+                    case RECURRING_DEPOSIT -> new RecurringDepositAccount(accountNumber, customer, balance,
+                            in.readLong(), in.readDouble(), in.readInt());
+                    default -> throw new IOException("Unknown account kind: " + kind);
+                };
+                customer.addAccount(account);
+            } else {
+                switch (kind) {
+                    case SAVINGS -> in.readDouble();
+                    case CURRENT -> in.readLong();
+                    case FIXED_DEPOSIT -> {
+                        in.readDouble();
+                        in.readInt();
+                    }
+                    case RECURRING_DEPOSIT -> {
+                        in.readLong();
+                        in.readDouble();
+                        in.readInt();
+                    }
+                    default -> throw new IOException("Unknown account kind: " + kind);
+                }
+            }
+            account.restoreState(balance, openingDate, active);
+            if (account instanceof FixedDepositAccount f) {
+                f.restoreMonthsCompleted(in.readInt());
+            } else if (account instanceof RecurringDepositAccount r) {
+                r.restoreMonthsCompleted(in.readInt());
+            }
+            return account;
+        });
+    }
+
+    public static byte[] encodeTransaction(Transaction transaction) {
+        return encode(out -> {
+            out.writeUTF(transaction.transactionId());
+            out.writeUTF(transaction.account().getAccountNumber());
+            out.writeLong(transaction.amount());
+            out.writeByte(transaction.type().ordinal());
+            writeTimestamp(out, transaction.timestamp());
+            writeNullable(out, transaction.description());
+        });
+    }
+
+    public static Transaction decodeTransaction(byte[] payload, Function<String, Account> accounts) {
+        return decode(payload, in -> {
+            String transactionId = in.readUTF();
+            String accountNumber = in.readUTF();
+            Account account = accounts.apply(accountNumber);
+            if (account == null) {
+                throw new IOException("Unknown account " + accountNumber + " for transaction " + transactionId);
+            }
+            return new Transaction(
+                    transactionId,
+                    account,
+                    in.readLong(),
+                    TRANSACTION_TYPES[in.readByte()],
+                    readTimestamp(in),
+                    readNullable(in)
+            );
+        });
+    }
+
+    public static byte[] encodeLedgerEvent(LedgerEvent event) {
+        return encode(out -> {
+            out.writeLong(event.sequence());
+            out.writeUTF(event.accountNumber());
+            out.writeByte(event.type().ordinal());
+            out.writeLong(event.delta());
+            out.writeLong(event.epochMillis());
+            writeNullable(out, event.reference());
+        });
+    }
+
+    public static LedgerEvent decodeLedgerEvent(byte[] payload) {
+        return decode(payload, in -> new LedgerEvent(
+                in.readLong(),
+                in.readUTF(),
+                ACTIVITY_TYPES[in.readByte()],
+                in.readLong(),
+                in.readLong(),
+                readNullable(in)
+        ));
+    }
+
+    public static byte[] encodeLoan(Loan loan) {
+        return encode(out -> {
+            byte kind = switch (loan) {
+                case PersonalLoan p -> PERSONAL_LOAN;
+                case HomeLoan h -> HOME_LOAN;
+                case AutoLoan a -> AUTO_LOAN;
+                case EducationLoan e -> EDUCATION_LOAN;
+                case BusinessLoan b -> BUSINESS_LOAN;
+                default -> throw new IllegalArgumentException("Unsupported loan type: " + loan.getLoanType());
+            };
+            out.writeByte(kind);
+            out.writeUTF(loan.getLoanId());
+            out.writeUTF(loan.getCustomer().getUserId());
+            out.writeLong(loan.getPrincipal());
+            out.writeInt(loan.getTenureMonths());
+            switch (loan) {
+                case HomeLoan h -> {
+                    writeNullable(out, h.getPropertyAddress());
+                    out.writeLong(h.getPropertyValue());
+                }
+                case AutoLoan a -> {
+                    writeNullable(out, a.getVehicleModel());
+                    out.writeLong(a.getVehicleValue());
+                    out.writeInt(a.getRegistrationYear());
+                }
+                case EducationLoan e -> {
+                    writeNullable(out, e.getInstitutionName());
+                    writeNullable(out, e.getCourseType());
+                    out.writeInt(e.getCourseDuration());
+                }
+                case BusinessLoan b -> {
+                    writeNullable(out, b.getBusinessName());
+                    writeNullable(out, b.getBusinessType());
+                    out.writeLong(b.getAnnualTurnover());
+                    out.writeLong(b.getCollateralValue());
+                }
+                default -> { }
+            }
+            out.writeByte(loan.getStatus().ordinal());
+            out.writeLong(loan.getDisbursementDate().toEpochDay());
+            var payments = loan.getPayments();
+            out.writeInt(payments.size());
+            for (LoanPayment payment : payments) {
+                out.writeUTF(payment.paymentId());
+                out.writeLong(payment.amount());
+                out.writeInt(payment.paymentMonth().getYear());
+                out.writeByte(payment.paymentMonth().getMonthValue());
+                out.writeLong(payment.paymentDate().toEpochDay());
+            }
+        });
+    }
+
+    public static Loan decodeLoan(byte[] payload, Function<String, Customer> customers) {
+        return decode(payload, in -> {
+            byte kind = in.readByte();
+            String loanId = in.readUTF();
+            String customerId = in.readUTF();
+            Customer customer = customers.apply(customerId);
+            if (customer == null) {
+                throw new IOException("Unknown customer " + customerId + " for loan " + loanId);
+            }
+            long principal = in.readLong();
+            int tenureMonths = in.readInt();
+            Loan loan = switch (kind) {
+                case PERSONAL_LOAN -> new PersonalLoan(loanId, customer, principal, tenureMonths);
+                case HOME_LOAN -> new HomeLoan(loanId, customer, principal, tenureMonths,
+                        readNullable(in), in.readLong());
+                case AUTO_LOAN -> new AutoLoan(loanId, customer, principal, tenureMonths,
+                        readNullable(in), in.readLong(), in.readInt());
+                case EDUCATION_LOAN -> new EducationLoan(loanId, customer, principal, tenureMonths,
+                        readNullable(in), readNullable(in), in.readInt());
+                case BUSINESS_LOAN -> new BusinessLoan(loanId, customer, principal, tenureMonths,
+                        readNullable(in), readNullable(in), in.readLong(), in.readLong());
+                default -> throw new IOException("Unknown loan kind: " + kind);
+            };
+            loan.setStatus(LOAN_STATUSES[in.readByte()]);
+            loan.setDisbursementDate(LocalDate.ofEpochDay(in.readLong()));
+            int paymentCount = in.readInt();
+            for (int i = 0; i < paymentCount; i++) {
+                String paymentId = in.readUTF();
+                long amount = in.readLong();
+                YearMonth month = YearMonth.of(in.readInt(), in.readByte());
+                LocalDate paymentDate = LocalDate.ofEpochDay(in.readLong());
+                loan.addPayment(new LoanPayment(paymentId, loan, amount, month, paymentDate));
+            }
+            return loan;
+        });
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T decode(byte[] payload, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt record payload", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
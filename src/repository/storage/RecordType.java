@@ -0,0 +1,44 @@
+package repository.storage;
+
+public enum RecordType {
+    USER_SAVE(1),
+    USER_DELETE(2),
+    USER_CLEAR(3),
+    ACCOUNT_SAVE(10),
+    ACCOUNT_DELETE(11),
+    ACCOUNT_CLEAR(12),
+    TRANSACTION_SAVE(20),
+    TRANSACTION_DELETE(21),
+    TRANSACTION_CLEAR(22),
+    LOAN_SAVE(30),
+    LOAN_DELETE(31),
+    LOAN_CLEAR(32),
+    BATCH(40),
+    LEDGER_EVENT(50);
+
+    private static final RecordType[] BY_CODE = new RecordType[64];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static RecordType fromCode(byte code) {
+        RecordType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown record type: " + code);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,136 @@
+package repository.storage;
+
+import exception.AccountNotFoundException;
+import model.account.Account;
+import model.ledger.LedgerEvent;
+import model.transaction.Transaction;
+import model.user.Customer;
+import model.user.User;
+import repository.AccountRepository;
+import repository.LedgerRepository;
+import repository.LoanRepository;
+import repository.TransactionRepository;
+import repository.UserRepository;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class RepositoryRecovery {
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LoanRepository loanRepository;
+    private final LedgerRepository ledgerRepository;
+
+    public RepositoryRecovery(UserRepository userRepository, AccountRepository accountRepository,
+                              TransactionRepository transactionRepository, LoanRepository loanRepository,
+                              LedgerRepository ledgerRepository) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.loanRepository = loanRepository;
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    public long recover(WriteAheadLog log) throws IOException {
+        long replayed = log.replay(this::apply);
+        attach(log);
+        return replayed;
+    }
+
+    public long recover(SnapshotStore snapshots, WriteAheadLog log) throws IOException {
+        long logOffset = snapshots.loadLatest(this::apply);
+        long replayed = log.replay(logOffset, this::apply);
+        attach(log);
+        return replayed;
+    }
+
+    // Mutations are paused only while the state is captured. Users, accounts and loans are mutable,
+    // so they are encoded on the spot; transactions and ledger events are immutable records and
+    // are copied by reference. Encoding those, the disk write and the fsync run with mutations live.
+    // The log itself is never truncated: it is the fallback when no snapshot is usable, e.g. after
+    // a snapshot format change, while recovery only replays the part after the snapshot offset.
+    public Path checkpoint(SnapshotStore snapshots, WriteAheadLog log) throws IOException {
+        long logOffset = log.pauseMutations();
+        List<byte[]> users;
+        List<byte[]> accounts;
+        List<Transaction> transactions;
+        List<byte[]> loans;
+        List<LedgerEvent> ledgerEvents;
+        try {
+            users = encodeAll(userRepository.findAll(), RecordCodec::encodeUser);
+            accounts = encodeAll(accountRepository.findAll(), RecordCodec::encodeAccount);
+            transactions = transactionRepository.findAll();
+            loans = encodeAll(loanRepository.findAll(), RecordCodec::encodeLoan);
+            ledgerEvents = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, ledgerRepository.count()));
+            ledgerRepository.events().forEach(ledgerEvents::add);
+        } finally {
+            log.resumeMutations();
+        }
+        return snapshots.write(logOffset, users, accounts, transactions, loans, ledgerEvents);
+    }
+
+    private static <T> List<byte[]> encodeAll(List<T> entities, Function<T, byte[]> encoder) {
+        List<byte[]> payloads = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            payloads.add(encoder.apply(entity));
+        }
+        return payloads;
+    }
+
+    private void attach(WriteAheadLog log) {
+        userRepository.setWriteAheadLog(log);
+        accountRepository.setWriteAheadLog(log);
+        transactionRepository.setWriteAheadLog(log);
+        loanRepository.setWriteAheadLog(log);
+        ledgerRepository.setWriteAheadLog(log);
+    }
+
+    public void apply(LogRecord record) {
+        byte[] payload = record.payload();
+        switch (record.type()) {
+            case USER_SAVE -> {
+                User user = RecordCodec.decodeUser(payload);
+                if (user instanceof Customer restored
+                        && userRepository.findById(user.getUserId()) instanceof Customer previous) {
+                    previous.getAccounts().forEach(restored::addAccount);
+                }
+                userRepository.save(user);
+            }
+            case USER_DELETE -> userRepository.delete(RecordCodec.decodeId(payload));
+            case USER_CLEAR -> userRepository.deleteAll();
+            case ACCOUNT_SAVE -> {
+                Account existing = findAccount(RecordCodec.decodeAccountNumber(payload));
+                Account account = RecordCodec.decodeAccount(payload, this::findCustomer, existing);
+                if (existing == null) {
+                    accountRepository.save(account);
+                }
+            }
+            case ACCOUNT_DELETE -> accountRepository.delete(RecordCodec.decodeId(payload));
+            case ACCOUNT_CLEAR -> accountRepository.deleteAll();
+            case TRANSACTION_SAVE -> transactionRepository.save(RecordCodec.decodeTransaction(payload, this::findAccount));
+            case TRANSACTION_DELETE -> transactionRepository.delete(RecordCodec.decodeId(payload));
+            case TRANSACTION_CLEAR -> transactionRepository.deleteAll();
+            case LOAN_SAVE -> loanRepository.save(RecordCodec.decodeLoan(payload, this::findCustomer));
+            case LOAN_DELETE -> loanRepository.delete(RecordCodec.decodeId(payload));
+            case LOAN_CLEAR -> loanRepository.deleteAll();
+            case BATCH -> RecordCodec.decodeBatch(payload).forEach(this::apply);
+            case LEDGER_EVENT -> ledgerRepository.apply(RecordCodec.decodeLedgerEvent(payload));
+        }
+    }
+
+    private Customer findCustomer(String userId) {
+        return userRepository.findById(userId) instanceof Customer customer ? customer : null;
+    }
+
+    private Account findAccount(String accountNumber) {
+        try {
+            return accountRepository.findByAccountNumber(accountNumber);
+        } catch (AccountNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package repository.storage;
+
+import model.ledger.LedgerEvent;
+import model.transaction.Transaction;
+import util.AsyncLogger;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class SnapshotStore {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SnapshotStore.class);
+
+    // Layout: [int magic][short version][long logOffset][long recordCount]
+    //         recordCount x ([byte recordType][int payloadLength][payload])
+    //         [int crc32 of everything before it]
+    private static final int MAGIC = 0x53425350;
+    private static final short VERSION = 3;
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Long.BYTES + Long.BYTES;
+    private static final long MAX_WINDOW_BYTES = 1L << 30;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private final Path directory;
+    private final int retainedSnapshots;
+
+    public SnapshotStore(Path directory) throws IOException {
+        this(directory, 2);
+    }
+
+    public SnapshotStore(Path directory, int retainedSnapshots) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Snapshot directory cannot be null");
+        }
+        if (retainedSnapshots < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        this.directory = directory;
+        this.retainedSnapshots = retainedSnapshots;
+        Files.createDirectories(directory);
+    }
+
+    // Users, accounts and loans arrive already encoded, since they are mutable and must be
+    // captured while mutations are paused; the rest are immutable and are encoded here
+    public Path write(long logOffset, Collection<byte[]> users, Collection<byte[]> accounts,
+                      Collection<Transaction> transactions, Collection<byte[]> loans,
+                      Collection<LedgerEvent> ledgerEvents) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, logOffset, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long recordCount = (long) users.size() + accounts.size() + transactions.size() + loans.size() + ledgerEvents.size();
+
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024), crc);
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(logOffset);
+            out.writeLong(recordCount);
+            // Order matters on load: accounts resolve customers, transactions resolve accounts
+            writeSection(out, RecordType.USER_SAVE, users, Function.identity());
+            writeSection(out, RecordType.ACCOUNT_SAVE, accounts, Function.identity());
+            writeSection(out, RecordType.TRANSACTION_SAVE, transactions, RecordCodec::encodeTransaction);
+            writeSection(out, RecordType.LOAN_SAVE, loans, Function.identity());
+            writeSection(out, RecordType.LEDGER_EVENT, ledgerEvents, RecordCodec::encodeLedgerEvent);
+            out.flush();
+            int checksum = (int) crc.getValue();
+            out.writeInt(checksum);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+        return target;
+    }
+
+    private static <T> void writeSection(DataOutputStream out, RecordType type, Iterable<T> entities,
+                                         Function<T, byte[]> encoder) throws IOException {
+        for (T entity : entities) {
+            byte[] payload = encoder.apply(entity);
+            out.writeByte(type.getCode());
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+    }
+
+    // Returns the write-ahead log offset the loaded snapshot covers, or 0 when none is usable.
+    // Corrupt snapshots and those written in another format version are skipped in favour of an
+    // older one, and failing that a full log replay.
+    public long loadLatest(Consumer<LogRecord> consumer) throws IOException {
+        for (Path snapshot : listSnapshots()) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                if (!isIntact(channel)) {
+                    LOGGER.warn("Skipping corrupt snapshot", "snapshot", snapshot.getFileName());
+                    continue;
+                }
+                long logOffset = load(channel, consumer);
+                if (logOffset >= 0) {
+                    return logOffset;
+                }
+                LOGGER.warn("Skipping snapshot in an unsupported format", "snapshot", snapshot.getFileName());
+            }
+        }
+        return 0;
+    }
+
+    public List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = retainedSnapshots; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private static boolean isIntact(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES + Integer.BYTES) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        long bodyEnd = size - Integer.BYTES;
+        for (long position = 0; position < bodyEnd; position += MAX_WINDOW_BYTES) {
+            long length = Math.min(MAX_WINDOW_BYTES, bodyEnd - position);
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+        }
+        ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, bodyEnd, Integer.BYTES);
+        return trailer.getInt() == (int) crc.getValue();
+    }
+
+    // Returns -1 without reading any record when the header is not in the current format
+    private static long load(FileChannel channel, Consumer<LogRecord> consumer) throws IOException {
+        MappedWindow in = new MappedWindow(channel, channel.size() - Integer.BYTES);
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            return -1;
+        }
+        long logOffset = in.readLong();
+        long recordCount = in.readLong();
+        for (long i = 0; i < recordCount; i++) {
+            RecordType type = RecordType.fromCode(in.readByte());
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            consumer.accept(new LogRecord(type, payload));
+        }
+        return logOffset;
+    }
+
+    // Sequential reader over a memory-mapped file that remaps in windows so files beyond 2 GB work
+    private static final class MappedWindow {
+        private final FileChannel channel;
+        private final long limit;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedWindow(FileChannel channel, long limit) throws IOException {
+            this.channel = channel;
+            this.limit = limit;
+            remap(0);
+        }
+
+        private void remap(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_WINDOW_BYTES, limit - position));
+        }
+
+        private ByteBuffer require(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (position + bytes > limit) {
+                    throw new IOException("Snapshot truncated at byte " + position);
+                }
+                remap(position);
+            }
+            return window;
+        }
+
+        byte readByte() throws IOException {
+            return require(Byte.BYTES).get();
+        }
+
+        short readShort() throws IOException {
+            return require(Short.BYTES).getShort();
+        }
+
+        int readInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        long readLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        void readFully(byte[] target) throws IOException {
+            require(target.length).get(target);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package repository.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog implements AutoCloseable {
+    // Frame layout: [int payloadLength][byte recordType][payload][int crc32(recordType + payload)]
+    private static final int HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    private static final int FRAME_OVERHEAD = HEADER_BYTES + Integer.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+    private static final int DEFAULT_GROUP_COMMIT_BATCH = 512;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final int groupCommitBatchRecords;
+    private final long groupCommitMaxWaitMillis;
+    private final ThreadLocal<List<LogRecord>> pendingBatch = new ThreadLocal<>();
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private GroupCommitStage groupCommitStage;
+    private long appendedRecords;
+
+    public WriteAheadLog(Path path) throws IOException {
+        this(path, FsyncPolicy.PER_OPERATION, 0, 0);
+    }
+
+    public WriteAheadLog(Path path, FsyncPolicy fsyncPolicy, long groupCommitIntervalMillis) throws IOException {
+        this(path, fsyncPolicy, DEFAULT_GROUP_COMMIT_BATCH, groupCommitIntervalMillis);
+    }
+
+    public WriteAheadLog(Path path, FsyncPolicy fsyncPolicy, int groupCommitBatchRecords,
+                         long groupCommitMaxWaitMillis) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Log path cannot be null");
+        }
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("Fsync policy cannot be null");
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP_COMMIT && (groupCommitBatchRecords <= 0 || groupCommitMaxWaitMillis <= 0)) {
+            throw new IllegalArgumentException("Group commit batch size and max wait must be positive");
+        }
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitBatchRecords = groupCommitBatchRecords;
+        this.groupCommitMaxWaitMillis = groupCommitMaxWaitMillis;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    public void beginBatch() {
+        if (pendingBatch.get() != null) {
+            throw new IllegalStateException("A batch is already open on this thread");
+        }
+        checkpointLock.readLock().lock();
+        pendingBatch.set(new ArrayList<>());
+    }
+
+    public void commitBatch() {
+        List<LogRecord> records = pendingBatch.get();
+        if (records == null) {
+            throw new IllegalStateException("No batch is open on this thread");
+        }
+        pendingBatch.remove();
+        try {
+            if (!records.isEmpty()) {
+                append(RecordType.BATCH, RecordCodec.encodeBatch(records));
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    public boolean isBatchOpen() {
+        return pendingBatch.get() != null;
+    }
+
+    public void abortBatch() {
+        if (pendingBatch.get() != null) {
+            pendingBatch.remove();
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Logging and applying a change happen under the shared side of the checkpoint lock, so a
+    // snapshot never sees a change whose record falls after its log offset or vice versa.
+    public void appendAndApply(RecordType type, byte[] payload, Runnable change) {
+        checkpointLock.readLock().lock();
+        try {
+            append(type, payload);
+            change.run();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // For changes that must take their own locks before building the record: holding the shared
+    // side first keeps lock order the same as a checkpoint's, which takes the exclusive side
+    // and then reads those structures.
+    public <T> T excludingCheckpoints(Supplier<T> mutation) {
+        checkpointLock.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    public long pauseMutations() throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                return channel.size();
+            }
+        } catch (IOException | RuntimeException e) {
+            checkpointLock.writeLock().unlock();
+            throw e;
+        }
+    }
+
+    public void resumeMutations() {
+        checkpointLock.writeLock().unlock();
+    }
+
+    public void append(RecordType type, byte[] payload) {
+        List<LogRecord> batch = pendingBatch.get();
+        if (batch != null) {
+            batch.add(new LogRecord(type, payload));
+            return;
+        }
+        if (payload.length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Record payload too large: " + payload.length + " bytes");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + payload.length);
+        frame.putInt(payload.length);
+        frame.put(type.getCode());
+        frame.put(payload);
+        frame.putInt(checksum(type.getCode(), payload));
+        frame.flip();
+
+        if (fsyncPolicy == FsyncPolicy.GROUP_COMMIT) {
+            // Callers block outside the log monitor so concurrent appends can share one fsync
+            groupCommitStage().submit(frame);
+            return;
+        }
+        synchronized (this) {
+            writeFrame(type, frame);
+        }
+    }
+
+    private void writeFrame(RecordType type, ByteBuffer frame) {
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            appendedRecords++;
+            if (fsyncPolicy == FsyncPolicy.PER_OPERATION) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append " + type + " record to " + path, e);
+        }
+    }
+
+    public long replay(Consumer<LogRecord> consumer) throws IOException {
+        return replay(0, consumer);
+    }
+
+    public synchronized long replay(long fromOffset, Consumer<LogRecord> consumer) throws IOException {
+        if (fromOffset < 0 || fromOffset > channel.size()) {
+            throw new IOException("Replay offset " + fromOffset + " is outside " + path + " (" + channel.size() + " bytes)");
+        }
+        long validBytes = fromOffset;
+        long replayed = 0;
+        InputStream source = Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ).position(fromOffset));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(source, 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                    break;
+                }
+                byte code;
+                byte[] payload = new byte[length];
+                int storedChecksum;
+                try {
+                    code = in.readByte();
+                    in.readFully(payload);
+                    storedChecksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (storedChecksum != checksum(code, payload)) {
+                    break;
+                }
+                consumer.accept(new LogRecord(RecordType.fromCode(code), payload));
+                validBytes += FRAME_OVERHEAD + length;
+                replayed++;
+            }
+        }
+        if (validBytes < channel.size()) {
+            // Drop a torn or corrupt tail left behind by a crash mid-append
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        channel.position(validBytes);
+        return replayed;
+    }
+
+    private synchronized GroupCommitStage groupCommitStage() {
+        if (groupCommitStage == null) {
+            groupCommitStage = new GroupCommitStage(channel, groupCommitBatchRecords, groupCommitMaxWaitMillis);
+        }
+        return groupCommitStage;
+    }
+
+    public synchronized void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync " + path, e);
+        }
+    }
+
+    public synchronized long getAppendedRecords() {
+        return groupCommitStage == null ? appendedRecords : groupCommitStage.getStats().committedRecords();
+    }
+
+    public synchronized GroupCommitStage.GroupCommitStats getGroupCommitStats() {
+        return groupCommitStage == null ? null : groupCommitStage.getStats();
+    }
+
+    // Non-null once group commit could not restore the log after a failed write; appends then fail
+    public synchronized IOException getFailure() {
+        return groupCommitStage == null ? null : groupCommitStage.getFailure();
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    private static int checksum(byte code, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(code);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (groupCommitStage != null) {
+            groupCommitStage.close();
+        }
+        if (channel.isOpen()) {
+            if (fsyncPolicy != FsyncPolicy.OS_MANAGED) {
+                channel.force(false);
+            }
+            channel.close();
+        }
+    }
+}
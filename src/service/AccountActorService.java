@@ -0,0 +1,199 @@
+package service;
+
+import model.account.*;
+import model.transaction.*;
+import repository.*;
+import util.AsyncLogger;
+import util.IdGenerator;
+import util.Money;
+import util.TimeOrderedIdGenerator;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Actor execution mode: every account owns a serial mailbox and each operation is a message run on
+// a virtual thread, so balance changes on different accounts never wait on a shared account lock.
+// Persistence is still globally serialised: every message saves through the repositories, whose
+// indexes sit behind one monitor, and appends to the shared write-ahead log. An account should be
+// driven through either this service or AccountService, not both at once, since the two modes do
+// not serialise against each other.
+public class AccountActorService implements AutoCloseable {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(AccountActorService.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final IdGenerator idGenerator;
+    private final ExecutorService carrier = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public AccountActorService(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+        this(accountRepository, transactionRepository, TimeOrderedIdGenerator.shared());
+    }
+
+    public AccountActorService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                               IdGenerator idGenerator) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idGenerator = idGenerator;
+    }
+
+    public CompletableFuture<Transaction> deposit(String accountNumber, long amount) {
+        String transactionId = idGenerator.nextId("TXN-");
+        return send(accountNumber, "Deposit failed: ", account -> {
+            account.deposit(amount);
+            Transaction transaction = new Transaction(
+                    transactionId,
+                    account,
+                    amount,
+                    TransactionType.DEPOSIT,
+                    LocalDateTime.now(),
+                    "Deposit of " + Money.format(amount)
+            );
+            account.recordActivity(ActivityType.DEPOSIT, amount, null);
+            transactionRepository.save(transaction);
+            accountRepository.update(account);
+            return transaction;
+        });
+    }
+
+    public CompletableFuture<Transaction> withdraw(String accountNumber, long amount) {
+        String transactionId = idGenerator.nextId("TXN-");
+        return send(accountNumber, "Withdrawal failed: ", account -> {
+            account.withdraw(amount);
+            Transaction transaction = new Transaction(
+                    transactionId,
+                    account,
+                    amount,
+                    TransactionType.WITHDRAWAL,
+                    LocalDateTime.now(),
+                    "Withdrawal of " + Money.format(amount)
+            );
+            account.recordActivity(ActivityType.WITHDRAWAL, amount, null);
+            transactionRepository.save(transaction);
+            accountRepository.update(account);
+            return transaction;
+        });
+    }
+
+    // Two-step protocol: the source mailbox debits and records its leg, then hands the credit to
+    // the destination mailbox. Neither account is held while the other is working, so a transfer
+    // is never atomic across both; if the credit is refused the source mailbox reverses the debit.
+    // A crash between the steps leaves a logged debit without its credit leg.
+    public CompletableFuture<AccountService.TransferResult> transfer(String fromAccountNumber, String toAccountNumber,
+                                                                     long amount) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            return CompletableFuture.failedFuture(new Exception("Transfer failed: cannot transfer to the same account"));
+        }
+        String debitId = idGenerator.nextId("TXN-");
+        String creditId = idGenerator.nextId("TXN-");
+
+        CompletableFuture<Transaction> debit = send(fromAccountNumber, "Transfer failed: ", fromAccount -> {
+            if (!accountRepository.exists(toAccountNumber)) {
+                throw new Exception("One or both accounts not found!");
+            }
+            fromAccount.withdraw(amount);
+            Transaction transaction = new Transaction(
+                    debitId,
+                    fromAccount,
+                    amount,
+                    TransactionType.TRANSFER,
+                    LocalDateTime.now(),
+                    "Transfer to account " + toAccountNumber
+            );
+            fromAccount.recordActivity(ActivityType.TRANSFER_OUT, amount, toAccountNumber);
+            transactionRepository.save(transaction);
+            accountRepository.update(fromAccount);
+            return transaction;
+        });
+
+        return debit.thenCompose(debitLeg -> send(toAccountNumber, "Transfer failed: ", toAccount -> {
+            toAccount.deposit(amount);
+            Transaction transaction = new Transaction(
+                    creditId,
+                    toAccount,
+                    amount,
+                    TransactionType.TRANSFER,
+                    LocalDateTime.now(),
+                    "Transfer from account " + fromAccountNumber
+            );
+            toAccount.recordActivity(ActivityType.TRANSFER_IN, amount, fromAccountNumber);
+            transactionRepository.save(transaction);
+            accountRepository.update(toAccount);
+            return new AccountService.TransferResult(debitLeg, transaction);
+        }).exceptionallyCompose(failure -> reverseDebit(debitLeg)
+                .thenCompose(ignored -> CompletableFuture.<AccountService.TransferResult>failedFuture(failure))));
+    }
+
+    private CompletableFuture<Void> reverseDebit(Transaction debitLeg) {
+        String accountNumber = debitLeg.account().getAccountNumber();
+        return send(accountNumber, "Transfer reversal failed: ", account -> {
+            account.deposit(debitLeg.amount());
+            account.recordActivity(ActivityType.REVERSAL, debitLeg.amount(), debitLeg.transactionId());
+            transactionRepository.delete(debitLeg.transactionId());
+            accountRepository.update(account);
+            return (Void) null;
+        }).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                LOGGER.error("Debit leg could not be reversed", "transaction", debitLeg.transactionId(),
+                        "account", accountNumber, "error", failure.getMessage());
+            }
+        });
+    }
+
+    public CompletableFuture<Long> getBalance(String accountNumber) {
+        return send(accountNumber, "Balance enquiry failed: ", Account::getBalance);
+    }
+
+    private <T> CompletableFuture<T> send(String accountNumber, String failurePrefix, Message<T> message) {
+        Account account;
+        try {
+            account = accountRepository.findByAccountNumber(accountNumber);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new Exception(failurePrefix + e.getMessage()));
+        }
+        if (account == null) {
+            return CompletableFuture.failedFuture(new Exception(failurePrefix + "Account not found: " + accountNumber));
+        }
+        return submit(mailboxFor(accountNumber), () -> {
+            try {
+                return message.handle(account);
+            } catch (Exception e) {
+                throw new Exception(failurePrefix + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> submit(Mailbox mailbox, Callable<T> work) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        mailbox.execute(() -> {
+            try {
+                reply.complete(work.call());
+            } catch (Throwable e) {
+                reply.completeExceptionally(e);
+            }
+        });
+        return reply;
+    }
+
+    private Mailbox mailboxFor(String accountNumber) {
+        return mailboxes.computeIfAbsent(accountNumber, ignored -> new Mailbox(carrier));
+    }
+
+    public int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    @Override
+    public void close() {
+        carrier.close();
+    }
+
+    @FunctionalInterface
+    private interface Message<T> {
+        T handle(Account account) throws Exception;
+    }
+}
@@ -5,132 +5,230 @@ import model.user.Customer;
 import model.transaction.*;
 import repository.*;
 import exception.*;
+import repository.storage.WriteAheadLog;
+import util.AsyncLogger;
+import util.IdGenerator;
+import util.Money;
+import util.TimeOrderedIdGenerator;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 
-public class AccountService {
+public class AccountService implements AutoCloseable {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(AccountService.class);
+
+    private static final int DEFAULT_LOCK_STRIPES = 1024;
+    private static final int DEFAULT_IDEMPOTENCY_KEYS = 1 << 20;
+    private static final Duration DEFAULT_IDEMPOTENCY_WINDOW = Duration.ofHours(24);
+    private static final Duration DEFAULT_HOLD_TTL = Duration.ofDays(7);
+    private static final long HOLD_WHEEL_TICK_MILLIS = 1000;
+    private static final int HOLD_WHEEL_SLOTS = 512;
 
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final StripedAccountLocks accountLocks;
+    private final IdGenerator idGenerator;
+    private final IdempotencyCache idempotencyCache;
+    private volatile HoldExpiryWheel holdExpiryWheel;
+    private boolean closed;
 
     public AccountService(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+        this(accountRepository, transactionRepository, DEFAULT_LOCK_STRIPES);
+    }
+
+    public AccountService(AccountRepository accountRepository, TransactionRepository transactionRepository, int lockStripes) {
+        this(accountRepository, transactionRepository, lockStripes, TimeOrderedIdGenerator.shared());
+    }
+
+    public AccountService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                          int lockStripes, IdGenerator idGenerator) {
+        this(accountRepository, transactionRepository, lockStripes, idGenerator,
+                DEFAULT_IDEMPOTENCY_KEYS, DEFAULT_IDEMPOTENCY_WINDOW);
+    }
+
+    public AccountService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                          int lockStripes, IdGenerator idGenerator,
+                          int idempotencyKeys, Duration idempotencyWindow) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
+        this.accountLocks = new StripedAccountLocks(lockStripes);
+        this.idGenerator = idGenerator;
+        this.idempotencyCache = new IdempotencyCache(idempotencyKeys, idempotencyWindow);
     }
 
-    public Account createSavingsAccount(Customer customer, double balance, double interestRate) throws InvalidAccountException {
+    public Account createSavingsAccount(Customer customer, long balance, double interestRate) throws InvalidAccountException {
         if (balance < 0) {
             throw new InvalidAccountException("Balance cannot be negative");
         }
-        String accountNumber = "ACC" + System.currentTimeMillis();
+        String accountNumber = idGenerator.nextId("ACC");
         Account account = new SavingsAccount(accountNumber, customer, balance, interestRate);
         customer.addAccount(account);
         accountRepository.save(account);
+        account.recordActivity(ActivityType.ACCOUNT_OPENING, account.getBalance(), null);
         return account;
     }
 
-    public Account createCurrentAccount(Customer customer, double balance, double overdraftLimit) throws InvalidAccountException {
+    public Account createCurrentAccount(Customer customer, long balance, long overdraftLimit) throws InvalidAccountException {
         if (balance < 0) {
             throw new InvalidAccountException("Balance cannot be negative");
         }
-        String accountNumber = "ACC" + System.currentTimeMillis();
+        String accountNumber = idGenerator.nextId("ACC");
         Account account = new CurrentAccount(accountNumber, customer, balance, overdraftLimit);
         customer.addAccount(account);
         accountRepository.save(account);
+        account.recordActivity(ActivityType.ACCOUNT_OPENING, account.getBalance(), null);
         return account;
     }
 
-    public Account createFixedDepositAccount(Customer customer, double amount, double interestRate, int tenureMonths) throws InvalidAccountException {
+    public Account createFixedDepositAccount(Customer customer, long amount, double interestRate, int tenureMonths) throws InvalidAccountException {
         if (amount < 0) {
             throw new InvalidAccountException("Amount cannot be negative");
         }
-        String accountNumber = "ACC" + System.currentTimeMillis();
+        String accountNumber = idGenerator.nextId("ACC");
         Account account = new FixedDepositAccount(accountNumber, customer, amount, interestRate, tenureMonths);
         customer.addAccount(account);
         accountRepository.save(account);
+        account.recordActivity(ActivityType.ACCOUNT_OPENING, account.getBalance(), null);
         return account;
     }
 
-    public Account createRecurringDepositAccount(Customer customer, double initialBalance,
-                                                 double monthlyDeposit, double interestRate,
+    public Account createRecurringDepositAccount(Customer customer, long initialBalance,
+                                                 long monthlyDeposit, double interestRate,
                                                  int tenureMonths) throws InvalidAccountException {
         if (initialBalance < 0) {
             throw new InvalidAccountException("Initial balance cannot be negative");
         }
-        String accountNumber = "ACC" + System.currentTimeMillis();
+        String accountNumber = idGenerator.nextId("ACC");
         Account account = new RecurringDepositAccount(accountNumber, customer, initialBalance,
                 monthlyDeposit, interestRate, tenureMonths);
         customer.addAccount(account);
         accountRepository.save(account);
+        account.recordActivity(ActivityType.ACCOUNT_OPENING, account.getBalance(), null);
         return account;
     }
 
-    public void deposit(String accountNumber, double amount) throws Exception {
+    public Transaction deposit(String accountNumber, long amount) throws Exception {
+        return deposit(accountNumber, amount, null);
+    }
+
+    // A repeated idempotency key returns the original transaction instead of posting again
+    public Transaction deposit(String accountNumber, long amount, String idempotencyKey) throws Exception {
+        if (idempotencyKey == null) {
+            return postDeposit(accountNumber, amount, idGenerator.nextId("TXN-"), false);
+        }
+        return idempotencyCache.execute(idempotencyKey, "DEPOSIT:" + accountNumber + ":" + amount, Transaction.class,
+                () -> postDeposit(accountNumber, amount, keyedTransactionId(idempotencyKey), true));
+    }
+
+    private Transaction postDeposit(String accountNumber, long amount, String transactionId,
+                                    boolean keyed) throws Exception {
         Account account = accountRepository.findByAccountNumber(accountNumber);
         if (account == null) {
             throw new Exception("Account not found: " + accountNumber);
         }
 
+        accountLocks.lock(accountNumber);
         try {
-            account.deposit(amount);
-
-            String transactionId = "TXN-" + UUID.randomUUID();
-            String transactionDesc = "DEPOSIT - " + amount + " - " + java.time.LocalDateTime.now();
-
+            if (keyed) {
+                Transaction previous = findKeyedTransaction(transactionId, accountNumber, amount, TransactionType.DEPOSIT);
+                if (previous != null) {
+                    return previous;
+                }
+            }
             Transaction transaction = new Transaction(
                     transactionId,
                     account,
                     amount,
                     TransactionType.DEPOSIT,
                     java.time.LocalDateTime.now(),
-                    "Deposit of " + amount
+                    "Deposit of " + Money.format(amount)
             );
 
-            account.recordTransaction(transactionDesc);
+            applyPosting(account, transaction, () -> account.deposit(amount));
 
-            transactionRepository.save(transaction);
-            accountRepository.update(account);
+            account.recordActivity(ActivityType.DEPOSIT, amount, null);
+            return transaction;
 
         } catch (Exception e) {
             throw new Exception("Deposit failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
         }
     }
 
 
-    public void withdraw(String accountNumber, double amount) throws Exception {
+    public Transaction withdraw(String accountNumber, long amount) throws Exception {
+        return withdraw(accountNumber, amount, null);
+    }
+
+    public Transaction withdraw(String accountNumber, long amount, String idempotencyKey) throws Exception {
+        if (idempotencyKey == null) {
+            return postWithdrawal(accountNumber, amount, idGenerator.nextId("TXN-"), false);
+        }
+        return idempotencyCache.execute(idempotencyKey, "WITHDRAWAL:" + accountNumber + ":" + amount, Transaction.class,
+                () -> postWithdrawal(accountNumber, amount, keyedTransactionId(idempotencyKey), true));
+    }
+
+    private Transaction postWithdrawal(String accountNumber, long amount, String transactionId,
+                                       boolean keyed) throws Exception {
         Account account = accountRepository.findByAccountNumber(accountNumber);
         if (account == null) {
             throw new Exception("Account not found: " + accountNumber);
         }
 
+        accountLocks.lock(accountNumber);
         try {
-            account.withdraw(amount);
-
-            String transactionId = "TXN-" + UUID.randomUUID();
-            String transactionDesc = "WITHDRAWAL - " + amount + " - " + java.time.LocalDateTime.now();
-
+            if (keyed) {
+                Transaction previous = findKeyedTransaction(transactionId, accountNumber, amount, TransactionType.WITHDRAWAL);
+                if (previous != null) {
+                    return previous;
+                }
+            }
             Transaction transaction = new Transaction(
                     transactionId,
                     account,
                     amount,
                     TransactionType.WITHDRAWAL,
                     java.time.LocalDateTime.now(),
-                    "Withdrawal of " + amount
+                    "Withdrawal of " + Money.format(amount)
             );
 
-            account.recordTransaction(transactionDesc);
+            applyPosting(account, transaction, () -> account.withdraw(amount));
 
-            transactionRepository.save(transaction);
-            accountRepository.update(account);
+            account.recordActivity(ActivityType.WITHDRAWAL, amount, null);
+            return transaction;
 
         } catch (Exception e) {
             throw new Exception("Withdrawal failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
         }
     }
 
 
-    public void transfer(String fromAccountNumber, String toAccountNumber, double amount) throws Exception {
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, long amount) throws Exception {
+        return transfer(fromAccountNumber, toAccountNumber, amount, null);
+    }
+
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, long amount,
+                                   String idempotencyKey) throws Exception {
+        if (idempotencyKey == null) {
+            return postTransfer(fromAccountNumber, toAccountNumber, amount,
+                    idGenerator.nextId("TXN-"), idGenerator.nextId("TXN-"), false);
+        }
+        String fingerprint = "TRANSFER:" + fromAccountNumber + ":" + toAccountNumber + ":" + amount;
+        String keyedId = keyedTransactionId(idempotencyKey);
+        return idempotencyCache.execute(idempotencyKey, fingerprint, TransferResult.class,
+                () -> postTransfer(fromAccountNumber, toAccountNumber, amount, keyedId + "-DR", keyedId + "-CR", true));
+    }
+
+    private TransferResult postTransfer(String fromAccountNumber, String toAccountNumber, long amount,
+                                        String debitId, String creditId, boolean keyed) throws Exception {
         Account fromAccount = accountRepository.findByAccountNumber(fromAccountNumber);
         Account toAccount = accountRepository.findByAccountNumber(toAccountNumber);
 
@@ -138,18 +236,16 @@ public class AccountService {
             throw new Exception("One or both accounts not found!");
         }
 
+        accountLocks.lockPair(fromAccountNumber, toAccountNumber);
         try {
-            fromAccount.withdraw(amount);
-            toAccount.deposit(amount);
-
-            String transactionId1 = "TXN-" + UUID.randomUUID();
-            String transactionId2 = "TXN-" + UUID.randomUUID();
-
-            String fromDesc = "TRANSFER OUT - " + amount + " to " + toAccountNumber;
-            String toDesc = "TRANSFER IN - " + amount + " from " + fromAccountNumber;
-
+            if (keyed) {
+                Transaction previousDebit = findKeyedTransaction(debitId, fromAccountNumber, amount, TransactionType.TRANSFER);
+                if (previousDebit != null) {
+                    return new TransferResult(previousDebit, transactionRepository.findById(creditId));
+                }
+            }
             Transaction transaction1 = new Transaction(
-                    transactionId1,
+                    debitId,
                     fromAccount,
                     amount,
                     TransactionType.TRANSFER,
@@ -158,7 +254,7 @@ public class AccountService {
             );
 
             Transaction transaction2 = new Transaction(
-                    transactionId2,
+                    creditId,
                     toAccount,
                     amount,
                     TransactionType.TRANSFER,
@@ -166,26 +262,422 @@ public class AccountService {
                     "Transfer from account " + fromAccountNumber
             );
 
-            fromAccount.recordTransaction(fromDesc);
-            toAccount.recordTransaction(toDesc);
+            applyTransfer(fromAccount, toAccount, transaction1, transaction2);
 
-            transactionRepository.save(transaction1);
-            transactionRepository.save(transaction2);
+            fromAccount.recordActivity(ActivityType.TRANSFER_OUT, amount, toAccountNumber);
+            toAccount.recordActivity(ActivityType.TRANSFER_IN, amount, fromAccountNumber);
+            return new TransferResult(transaction1, transaction2);
+
+        } catch (Exception e) {
+            throw new Exception("Transfer failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlockPair(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+    private static String keyedTransactionId(String idempotencyKey) {
+        return "IDK-" + idempotencyKey;
+    }
+
+    // Keyed transactions outlive the cache in the repository, so a retry after eviction or a
+    // restart still finds the original instead of posting twice
+    private Transaction findKeyedTransaction(String transactionId, String accountNumber, long amount,
+                                             TransactionType type) {
+        Transaction previous = transactionRepository.findById(transactionId);
+        if (previous != null && (previous.type() != type || previous.amount() != amount
+                || !previous.account().getAccountNumber().equals(accountNumber))) {
+            throw new IllegalStateException("Idempotency key behind " + transactionId + " was already used for a different request");
+        }
+        return previous;
+    }
+
+    // Both legs and both records are logged as one write-ahead batch; any failure restores the
+    // pre-transfer balances and removes whichever records were already stored.
+    private void applyTransfer(Account fromAccount, Account toAccount,
+                               Transaction debit, Transaction credit) throws Exception {
+        long fromBalance = fromAccount.getBalance();
+        long toBalance = toAccount.getBalance();
+        WriteAheadLog log = accountRepository.getWriteAheadLog();
+        List<Transaction> saved = new ArrayList<>(2);
+
+        if (log != null) {
+            log.beginBatch();
+        }
+        try {
+            fromAccount.withdraw(debit.amount());
+            toAccount.deposit(credit.amount());
+
+            transactionRepository.save(debit);
+            saved.add(debit);
+            transactionRepository.save(credit);
+            saved.add(credit);
 
             accountRepository.update(fromAccount);
             accountRepository.update(toAccount);
 
+            if (log != null) {
+                log.commitBatch();
+            }
         } catch (Exception e) {
-            throw new Exception("Transfer failed: " + e.getMessage());
+            // Compensation runs inside a batch that is then discarded, so none of it reaches the log
+            if (log != null && !log.isBatchOpen()) {
+                log.beginBatch();
+            }
+            fromAccount.restoreState(fromBalance, fromAccount.getOpeningDate(), fromAccount.isActive());
+            toAccount.restoreState(toBalance, toAccount.getOpeningDate(), toAccount.isActive());
+            for (Transaction transaction : saved) {
+                transactionRepository.delete(transaction.transactionId());
+            }
+            if (log != null) {
+                log.abortBatch();
+            }
+            throw e;
         }
     }
 
+    // Single-account counterpart of applyTransfer: the balance change, its record (if any) and the
+    // account update go to the log as one batch, and a failure anywhere restores the balance and
+    // drops the record. Activity is left to the caller so it is only recorded once committed.
+    private void applyPosting(Account account, Transaction transaction, BalanceChange change) throws Exception {
+        long balanceBefore = account.getBalance();
+        WriteAheadLog log = accountRepository.getWriteAheadLog();
+        boolean saved = false;
 
-    public void calculateMonthlyInterest() {
-        List<Account> allAccounts = accountRepository.findAll();
-        for (Account account : allAccounts) {
-            account.calculateInterest();
+        if (log != null) {
+            log.beginBatch();
+        }
+        try {
+            change.apply();
+            if (transaction != null) {
+                transactionRepository.save(transaction);
+                saved = true;
+            }
             accountRepository.update(account);
+
+            if (log != null) {
+                log.commitBatch();
+            }
+        } catch (Exception e) {
+            if (log != null && !log.isBatchOpen()) {
+                log.beginBatch();
+            }
+            account.restoreState(balanceBefore, account.getOpeningDate(), account.isActive());
+            if (saved) {
+                transactionRepository.delete(transaction.transactionId());
+            }
+            if (log != null) {
+                log.abortBatch();
+            }
+            throw e;
+        }
+    }
+
+    public InterestRunReport calculateMonthlyInterest() {
+        return calculateMonthlyInterest(YearMonth.now(), Runtime.getRuntime().availableProcessors());
+    }
+
+    // Re-running a period after a crash resumes it: accounts whose posting already reached the
+    // log are recognised by their period-keyed transaction id and skipped.
+    public InterestRunReport calculateMonthlyInterest(YearMonth period, int parallelism) {
+        InterestRun run = new InterestRun(period, this::postInterest,
+                accountRepository.findAll(), accountLocks);
+        InterestRunReport report = run.run(parallelism);
+        LOGGER.info("Interest run finished", "period", period, "accounts", report.accountsProcessed(),
+                "credited", report.accountsCredited(), "skipped", report.accountsSkipped(),
+                "failed", report.accountsFailed(), "interest", Money.format(report.totalInterest()),
+                "accountsPerSecond", Math.round(report.accountsPerSecond()));
+        return report;
+    }
+
+    private long postInterest(Account account, YearMonth period) throws Exception {
+        String accountNumber = account.getAccountNumber();
+        String interestId = "INT-" + period + "-" + accountNumber;
+        String installmentId = "RDI-" + period + "-" + accountNumber;
+
+        accountLocks.lock(accountNumber);
+        try {
+            if (transactionRepository.exists(interestId) || transactionRepository.exists(installmentId)) {
+                return -1;
+            }
+            return postInterest(account, 1, interestId, installmentId, String.valueOf(period));
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    // Posts any number of missed months in one step, as one interest and one installment record
+    public long catchUpInterest(String accountNumber, int months) throws Exception {
+        if (months <= 0) {
+            throw new IllegalArgumentException("Months must be positive");
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+        if (account == null) {
+            throw new Exception("Account not found: " + accountNumber);
+        }
+        accountLocks.lock(accountNumber);
+        try {
+            return postInterest(account, months, idGenerator.nextId("TXN-"), idGenerator.nextId("TXN-"),
+                    months + " months");
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    // Caller holds the account lock
+    private long postInterest(Account account, int months, String interestId, String installmentId,
+                              String label) throws Exception {
+        long balanceBefore = account.getBalance();
+        int monthsBefore = monthsCompleted(account);
+        WriteAheadLog log = accountRepository.getWriteAheadLog();
+        List<Transaction> saved = new ArrayList<>(2);
+
+        if (log != null) {
+            log.beginBatch();
+        }
+        try {
+            long interest = account.calculateInterest(months);
+            long installment = account.getBalance() - balanceBefore - interest;
+            LocalDateTime now = LocalDateTime.now();
+            if (installment > 0) {
+                Transaction deposit = new Transaction(installmentId, account, installment,
+                        TransactionType.DEPOSIT, now, "Recurring deposit installments for " + label);
+                transactionRepository.save(deposit);
+                saved.add(deposit);
+            }
+            if (interest > 0) {
+                Transaction credit = new Transaction(interestId, account, interest,
+                        TransactionType.INTEREST_CREDIT, now, "Interest for " + label);
+                transactionRepository.save(credit);
+                saved.add(credit);
+            }
+            if (account.getBalance() != balanceBefore || monthsCompleted(account) != monthsBefore) {
+                accountRepository.update(account);
+            }
+            if (log != null) {
+                log.commitBatch();
+            }
+            // Activity feeds the ledger, so it is only recorded once the postings are committed
+            for (Transaction transaction : saved) {
+                account.recordActivity(transaction.type() == TransactionType.DEPOSIT
+                        ? ActivityType.DEPOSIT : ActivityType.INTEREST_CREDIT, transaction.amount(), null);
+            }
+            return interest;
+        } catch (Exception e) {
+            if (log != null && !log.isBatchOpen()) {
+                log.beginBatch();
+            }
+            account.restoreState(balanceBefore, account.getOpeningDate(), account.isActive());
+            restoreMonthsCompleted(account, monthsBefore);
+            for (Transaction transaction : saved) {
+                transactionRepository.delete(transaction.transactionId());
+            }
+            if (log != null) {
+                log.abortBatch();
+            }
+            throw e;
+        }
+    }
+
+    private static int monthsCompleted(Account account) {
+        return switch (account) {
+            case FixedDepositAccount f -> f.getMonthsCompleted();
+            case RecurringDepositAccount r -> r.getMonthsCompleted();
+            default -> 0;
+        };
+    }
+
+    private static void restoreMonthsCompleted(Account account, int monthsCompleted) {
+        if (account instanceof FixedDepositAccount f) {
+            f.restoreMonthsCompleted(monthsCompleted);
+        } else if (account instanceof RecurringDepositAccount r) {
+            r.restoreMonthsCompleted(monthsCompleted);
+        }
+    }
+
+    public List<DepositMaturity> projectDepositMaturities() {
+        return accountRepository.findAll().parallelStream()
+                .map(AccountService::projectMaturity)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(DepositMaturity::maturityDate))
+                .toList();
+    }
+
+    public long projectTotalMaturityValue() {
+        return projectDepositMaturities().stream()
+                .mapToLong(DepositMaturity::maturityValue)
+                .reduce(0L, Money::add);
+    }
+
+    private static DepositMaturity projectMaturity(Account account) {
+        return switch (account) {
+            case FixedDepositAccount f -> new DepositMaturity(f.getAccountNumber(), f.getAccountType(),
+                    f.getMaturityDate(), f.getBalance(), f.projectMaturityValue());
+            case RecurringDepositAccount r -> new DepositMaturity(r.getAccountNumber(), r.getAccountType(),
+                    r.getMaturityDate(), r.getBalance(), r.projectMaturityValue());
+            default -> null;
+        };
+    }
+
+    public Hold placeHold(String accountNumber, long amount) throws Exception {
+        return placeHold(accountNumber, amount, DEFAULT_HOLD_TTL);
+    }
+
+    // Holds only move the account's held amount by compare-and-set, so they never wait on the
+    // account lock or on each other
+    public Hold placeHold(String accountNumber, long amount, Duration ttl) throws Exception {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Hold lifetime must be positive");
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+        if (!account.supportsHolds()) {
+            throw new Exception("Holds are not supported on " + account.getAccountType() + " account " + accountNumber);
+        }
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        Hold hold = account.placeHold(idGenerator.nextId("HOLD-"), amount, expiresAt);
+        try {
+            holdExpiryWheel().schedule(accountNumber, hold.getHoldId(), expiresAt);
+        } catch (IllegalStateException e) {
+            account.releaseHold(hold.getHoldId());
+            throw e;
+        }
+        return hold;
+    }
+
+    public Transaction captureHold(String accountNumber, String holdId, long amount) throws Exception {
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+
+        accountLocks.lock(accountNumber);
+        Hold hold = null;
+        try {
+            hold = account.getHold(holdId);
+            Transaction transaction = new Transaction(
+                    idGenerator.nextId("TXN-"),
+                    account,
+                    amount,
+                    TransactionType.WITHDRAWAL,
+                    java.time.LocalDateTime.now(),
+                    "Capture of hold " + holdId
+            );
+
+            applyPosting(account, transaction, () -> account.captureHold(holdId, amount));
+            unscheduleHold(holdId);
+
+            account.recordActivity(ActivityType.HOLD_CAPTURE, amount, holdId);
+            return transaction;
+
+        } catch (Exception e) {
+            // Captures are serialised by the lock, so a captured hold here is this call's own
+            if (hold != null && hold.getStatus() == HoldStatus.CAPTURED) {
+                account.reinstateHold(hold);
+                holdExpiryWheel().schedule(accountNumber, holdId, hold.getExpiresAtMillis());
+            }
+            throw new Exception("Capture failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    // Loan movements take the account's lock stripe like every other balance change, so they
+    // cannot interleave with a concurrent deposit, withdrawal or transfer on the same account
+    public void creditLoanDisbursement(String accountNumber, String loanId, long amount) throws Exception {
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+
+        accountLocks.lock(accountNumber);
+        try {
+            applyPosting(account, null, () -> account.deposit(amount));
+            account.recordActivity(ActivityType.LOAN_DISBURSEMENT, amount, loanId);
+        } catch (Exception e) {
+            throw new Exception("Loan disbursement failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    public void debitLoanRepayment(String accountNumber, String loanId, long amount) throws Exception {
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+
+        accountLocks.lock(accountNumber);
+        try {
+            applyPosting(account, null, () -> account.withdraw(amount));
+            account.recordActivity(ActivityType.LOAN_REPAYMENT, amount, loanId);
+        } catch (Exception e) {
+            throw new Exception("Loan repayment failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    // Credits back a repayment debit whose loan payment could not be recorded
+    public void reverseLoanRepayment(String accountNumber, String loanId, long amount) throws Exception {
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+
+        accountLocks.lock(accountNumber);
+        try {
+            applyPosting(account, null, () -> account.deposit(amount));
+            account.recordActivity(ActivityType.REVERSAL, amount, loanId);
+        } catch (Exception e) {
+            throw new Exception("Loan repayment reversal failed: " + e.getMessage());
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
+    }
+
+    public boolean releaseHold(String accountNumber, String holdId) throws Exception {
+        if (!accountRepository.findByAccountNumber(accountNumber).releaseHold(holdId)) {
+            return false;
+        }
+        unscheduleHold(holdId);
+        return true;
+    }
+
+    public long getAvailableBalance(String accountNumber) throws Exception {
+        return accountRepository.findByAccountNumber(accountNumber).getAvailableBalance();
+    }
+
+    // The sweeper thread only starts once the first hold is placed
+    private HoldExpiryWheel holdExpiryWheel() {
+        HoldExpiryWheel wheel = holdExpiryWheel;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = holdExpiryWheel;
+                if (closed) {
+                    throw new IllegalStateException("Account service is closed");
+                }
+                if (wheel == null) {
+                    wheel = new HoldExpiryWheel(HOLD_WHEEL_TICK_MILLIS, HOLD_WHEEL_SLOTS, this::expireHold);
+                    holdExpiryWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+    private void unscheduleHold(String holdId) {
+        HoldExpiryWheel wheel = holdExpiryWheel;
+        if (wheel != null) {
+            wheel.cancel(holdId);
+        }
+    }
+
+    // Stops the hold expiry sweeper; holds still active stay placed but no longer expire
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (holdExpiryWheel != null) {
+            holdExpiryWheel.close();
+        }
+    }
+
+    private void expireHold(String accountNumber, String holdId, long nowMillis) {
+        if (!accountRepository.exists(accountNumber)) {
+            return;
+        }
+        try {
+            if (accountRepository.findByAccountNumber(accountNumber).expireHold(holdId, nowMillis)) {
+                LOGGER.debug("Hold expired", "holdId", holdId, "accountNumber", accountNumber);
+            }
+        } catch (AccountNotFoundException e) {
+            // Closed between the check and the lookup; its holds went with it
         }
     }
 
@@ -194,14 +686,68 @@ public class AccountService {
         if (account == null) {
             throw new Exception("Account not found!");
         }
-        return account.getAccountDetails();
+        accountLocks.lock(accountNumber);
+        try {
+            return account.getAccountDetails();
+        } finally {
+            accountLocks.unlock(accountNumber);
+        }
     }
 
     public void updateAccount(Account account) {
-        accountRepository.update(account);
+        accountLocks.lock(account.getAccountNumber());
+        try {
+            accountRepository.update(account);
+        } finally {
+            accountLocks.unlock(account.getAccountNumber());
+        }
     }
 
     public List<Account> getActiveAccounts() {
         return accountRepository.findActiveAccounts();
     }
-}
\ No newline at end of file
+
+    public record InterestRunReport(
+            YearMonth period,
+            long accountsProcessed,
+            long accountsCredited,
+            long accountsSkipped,
+            long accountsFailed,
+            long totalInterest,
+            long elapsedNanos
+    ) {
+        public double accountsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : accountsProcessed * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public String getSummary() {
+            return String.format(
+                    "Period: %s | Accounts: %d | Credited: %d | Skipped: %d | Failed: %d | Interest: Euro %s | %.0f accounts/s",
+                    period, accountsProcessed, accountsCredited, accountsSkipped, accountsFailed,
+                    Money.format(totalInterest), accountsPerSecond()
+            );
+        }
+    }
+
+    public record DepositMaturity(
+            String accountNumber,
+            String accountType,
+            LocalDate maturityDate,
+            long currentBalance,
+            long maturityValue
+    ) {
+        public String getSummary() {
+            return String.format("%s (%s) matures %s: Euro %s -> Euro %s",
+                    accountNumber, accountType, maturityDate,
+                    Money.format(currentBalance), Money.format(maturityValue));
+        }
+    }
+
+    public record TransferResult(Transaction debit, Transaction credit) {
+    }
+
+    @FunctionalInterface
+    private interface BalanceChange {
+        void apply() throws Exception;
+    }
+}
@@ -0,0 +1,365 @@
+package service;
+
+import model.account.Account;
+import model.account.ActivityType;
+import model.account.CurrentAccount;
+import model.account.SavingsAccount;
+import model.transaction.Transaction;
+import model.transaction.TransactionType;
+import model.user.Customer;
+import repository.AccountRepository;
+import repository.TransactionRepository;
+import repository.UserRepository;
+import util.AsyncLogger;
+import util.IdGenerator;
+import util.Money;
+import util.TimeOrderedIdGenerator;
+import util.ValidationUtil;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+// Streams CSV or NDJSON files into the repositories in fixed-size chunks, so memory depends on
+// the chunk size rather than the file. Each chunk is parsed and validated on a fork-join pool
+// while the reader fetches the next one, then inserted as a single logged batch. Transaction
+// indexes are built once, after the whole file has been loaded.
+public class BulkImportService {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(BulkImportService.class);
+
+    public static final int DEFAULT_CHUNK_ROWS = 8192;
+    private static final int READ_BUFFER_CHARS = 1 << 20;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final IdGenerator idGenerator;
+    private final int chunkRows;
+    private final int parallelism;
+
+    public BulkImportService(UserRepository userRepository, AccountRepository accountRepository,
+                             TransactionRepository transactionRepository) {
+        this(userRepository, accountRepository, transactionRepository, DEFAULT_CHUNK_ROWS,
+                Runtime.getRuntime().availableProcessors(), TimeOrderedIdGenerator.shared());
+    }
+
+    public BulkImportService(UserRepository userRepository, AccountRepository accountRepository,
+                             TransactionRepository transactionRepository, int chunkRows, int parallelism,
+                             IdGenerator idGenerator) {
+        if (chunkRows <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive");
+        }
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.chunkRows = chunkRows;
+        this.parallelism = parallelism;
+        this.idGenerator = idGenerator;
+    }
+
+    // Columns: accountNumber, customerId, type (SAVINGS or CURRENT), balance, then interestRate
+    // for savings or overdraftLimit for current accounts; openingDate and active are optional.
+    // Balances are taken as they stand and enter the ledger as the opening event.
+    public ImportReport importAccounts(Path file) throws IOException {
+        Map<String, Customer> customers = new HashMap<>();
+        for (Customer customer : userRepository.findAllCustomers()) {
+            customers.put(customer.getUserId(), customer);
+        }
+        return load(file, row -> parseAccount(row, customers), this::insertAccounts, () -> { });
+    }
+
+    // Columns: transactionId (generated when empty), accountNumber, type, amount, timestamp and
+    // an optional description. Rows are history only; account balances are not replayed.
+    public ImportReport importTransactions(Path file) throws IOException {
+        return load(file, this::parseTransaction, this::insertTransactions, transactionRepository::finishBulkLoad);
+    }
+
+    // finish always runs, so rows inserted before a failure still get indexed, and its time is
+    // part of the reported throughput
+    private <T> ImportReport load(Path file, Mapper<T> mapper, Sink<T> sink, Runnable finish) throws IOException {
+        ImportRowParser.Format format = ImportRowParser.Format.of(file.getFileName().toString());
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long started = System.nanoTime();
+        Tally tally = new Tally();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), READ_BUFFER_CHARS)) {
+            ImportRowParser parser;
+            long nextLine = 1;
+            if (format == ImportRowParser.Format.CSV) {
+                String header = reader.readLine();
+                parser = header == null ? null : ImportRowParser.csv(header);
+                nextLine++;
+            } else {
+                parser = ImportRowParser.ndjson();
+            }
+            Chunk chunk = parser == null ? Chunk.EMPTY : readChunk(reader, nextLine);
+            while (chunk.size() > 0) {
+                Chunk current = chunk;
+                ForkJoinTask<List<Parsed<T>>> parsed = pool.submit(() -> parseChunk(current, parser, mapper));
+                chunk = readChunk(reader, current.firstLine() + current.size());
+                sink.insert(parsed.join(), tally);
+                LOGGER.debug("Import chunk loaded", "file", file.getFileName(), "rows", tally.read,
+                        "imported", tally.imported);
+            }
+        } finally {
+            pool.shutdown();
+            finish.run();
+        }
+
+        ImportReport report = new ImportReport(file, tally.read, tally.imported, tally.rejected,
+                List.copyOf(tally.errors), System.nanoTime() - started, peakHeapBytes(heapPools));
+        LOGGER.info("Bulk import finished", "file", file.getFileName(), "rows", report.rowsRead(),
+                "imported", report.rowsImported(), "rejected", report.rowsRejected(),
+                "rowsPerSecond", Math.round(report.rowsPerSecond()),
+                "peakHeapMb", report.peakHeapBytes() >> 20);
+        return report;
+    }
+
+    private Chunk readChunk(BufferedReader reader, long firstLine) throws IOException {
+        String[] lines = new String[chunkRows];
+        int size = 0;
+        String line;
+        while (size < chunkRows && (line = reader.readLine()) != null) {
+            lines[size++] = line;
+        }
+        return new Chunk(firstLine, lines, size);
+    }
+
+    // Runs on the pool; blank lines are skipped but still count towards line numbers
+    private static <T> List<Parsed<T>> parseChunk(Chunk chunk, ImportRowParser parser, Mapper<T> mapper) {
+        return IntStream.range(0, chunk.size())
+                .parallel()
+                .mapToObj(i -> {
+                    String line = chunk.lines()[i];
+                    if (line.isBlank()) {
+                        return null;
+                    }
+                    long lineNumber = chunk.firstLine() + i;
+                    try {
+                        return new Parsed<>(lineNumber, mapper.map(parser.parse(line)), null);
+                    } catch (RuntimeException e) {
+                        return new Parsed<T>(lineNumber, null, e.getMessage());
+                    }
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Account parseAccount(ImportRowParser.Row row, Map<String, Customer> customers) {
+        String accountNumber = row.get("accountNumber");
+        require(ValidationUtil.isValidAccountNumber(accountNumber), "Invalid account number: " + accountNumber);
+        String customerId = row.get("customerId");
+        require(ValidationUtil.isValidCustomerId(customerId), "Invalid customer id: " + customerId);
+        Customer customer = customers.get(customerId);
+        require(customer != null, "Unknown customer: " + customerId);
+        long balance = Money.parse(required(row, "balance"));
+        require(ValidationUtil.isValidBalance(Money.toMajor(balance)), "Invalid balance: " + Money.format(balance));
+
+        String type = required(row, "type").toUpperCase(Locale.ROOT);
+        Account account = switch (type) {
+            case "SAVINGS" -> {
+                double interestRate = Double.parseDouble(required(row, "interestRate"));
+                require(ValidationUtil.isValidInterestRate(interestRate), "Invalid interest rate: " + interestRate);
+                yield new SavingsAccount(accountNumber, customer, balance, interestRate);
+            }
+            case "CURRENT" -> {
+                long overdraftLimit = Money.parse(required(row, "overdraftLimit"));
+                require(overdraftLimit >= 0, "Overdraft limit cannot be negative");
+                yield new CurrentAccount(accountNumber, customer, balance, overdraftLimit);
+            }
+            default -> throw new IllegalArgumentException("Unsupported account type: " + type);
+        };
+
+        String openingDate = row.get("openingDate");
+        String active = row.get("active");
+        if (openingDate != null || active != null) {
+            account.restoreState(balance,
+                    openingDate == null ? account.getOpeningDate() : LocalDate.parse(openingDate),
+                    active == null || Boolean.parseBoolean(active));
+        }
+        return account;
+    }
+
+    private Transaction parseTransaction(ImportRowParser.Row row) {
+        String transactionId = row.get("transactionId");
+        String accountNumber = row.get("accountNumber");
+        require(ValidationUtil.isValidAccountNumber(accountNumber), "Invalid account number: " + accountNumber);
+        TransactionType type = TransactionType.valueOf(required(row, "type").toUpperCase(Locale.ROOT));
+        long amount = Money.parse(required(row, "amount"));
+        require(ValidationUtil.isValidTransactionAmount(Money.toMajor(amount)), "Invalid amount: " + Money.format(amount));
+        LocalDateTime timestamp = LocalDateTime.parse(required(row, "timestamp"));
+
+        Account account;
+        try {
+            account = accountRepository.findByAccountNumber(accountNumber);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unknown account: " + accountNumber);
+        }
+        String description = row.get("description");
+        return new Transaction(
+                transactionId == null ? idGenerator.nextId("TXN-") : transactionId,
+                account,
+                amount,
+                type,
+                timestamp,
+                description == null ? "Imported " + type.name().toLowerCase(Locale.ROOT) : description
+        );
+    }
+
+    // Duplicate checks run here rather than in parallel validation, so rows repeated within one
+    // chunk or across chunks are caught as well
+    private void insertAccounts(List<Parsed<Account>> rows, Tally tally) {
+        List<Account> batch = new ArrayList<>(rows.size());
+        Set<String> numbers = new HashSet<>();
+        for (Parsed<Account> row : rows) {
+            if (!tally.accept(row)) {
+                continue;
+            }
+            String accountNumber = row.value().getAccountNumber();
+            if (accountRepository.exists(accountNumber) || !numbers.add(accountNumber)) {
+                tally.reject(row.line(), "Duplicate account number: " + accountNumber);
+                continue;
+            }
+            batch.add(row.value());
+        }
+        accountRepository.saveAll(batch);
+        for (Account account : batch) {
+            account.getCustomer().addAccount(account);
+            account.recordActivity(ActivityType.ACCOUNT_OPENING, account.getBalance(), null);
+        }
+        tally.imported += batch.size();
+    }
+
+    private void insertTransactions(List<Parsed<Transaction>> rows, Tally tally) {
+        List<Transaction> batch = new ArrayList<>(rows.size());
+        Set<String> ids = new HashSet<>();
+        for (Parsed<Transaction> row : rows) {
+            if (!tally.accept(row)) {
+                continue;
+            }
+            String transactionId = row.value().transactionId();
+            if (transactionRepository.exists(transactionId) || !ids.add(transactionId)) {
+                tally.reject(row.line(), "Duplicate transaction id: " + transactionId);
+                continue;
+            }
+            batch.add(row.value());
+        }
+        transactionRepository.saveAllDeferringIndexes(batch);
+        tally.imported += batch.size();
+    }
+
+    private static String required(ImportRowParser.Row row, String column) {
+        String value = row.get(column);
+        require(value != null, "Missing " + column);
+        return value;
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+                .toList();
+    }
+
+    // Sum of per-pool peaks, which can slightly overstate the true peak since pools need not
+    // peak at the same moment
+    private static long peakHeapBytes(List<MemoryPoolMXBean> pools) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage() == null ? 0 : pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    @FunctionalInterface
+    private interface Mapper<T> {
+        T map(ImportRowParser.Row row);
+    }
+
+    @FunctionalInterface
+    private interface Sink<T> {
+        void insert(List<Parsed<T>> rows, Tally tally);
+    }
+
+    private record Chunk(long firstLine, String[] lines, int size) {
+        private static final Chunk EMPTY = new Chunk(1, new String[0], 0);
+    }
+
+    private record Parsed<T>(long line, T value, String error) {
+    }
+
+    // Only touched by the importing thread
+    private static final class Tally {
+        private long read;
+        private long imported;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        boolean accept(Parsed<?> row) {
+            read++;
+            if (row.error() != null) {
+                reject(row.line(), row.error());
+                return false;
+            }
+            return true;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + line + ": " + message);
+            }
+        }
+    }
+
+    public record ImportReport(
+            Path source,
+            long rowsRead,
+            long rowsImported,
+            long rowsRejected,
+            List<String> errors,
+            long elapsedNanos,
+            long peakHeapBytes
+    ) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public String getSummary() {
+            return String.format(
+                    "Source: %s | Rows: %d | Imported: %d | Rejected: %d | %.0f rows/s | Peak heap: %d MB",
+                    source.getFileName(), rowsRead, rowsImported, rowsRejected, rowsPerSecond(),
+                    peakHeapBytes >> 20
+            );
+        }
+    }
+}
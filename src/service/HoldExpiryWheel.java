@@ -0,0 +1,137 @@
+package service;
+
+import util.AsyncLogger;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Hashed timer wheel for hold expiry. Scheduling is a lock-free enqueue into the slot for the
+// deadline; each tick drains a single slot, so the sweeper touches only holds due about now
+// instead of scanning every account. Deadlines more than one rotation away go round again.
+// A tick's slot is swept once the whole tick has passed, so everything in it from the current
+// rotation is due; deadlines in ticks already swept go into the next slot still to be swept.
+class HoldExpiryWheel {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(HoldExpiryWheel.class);
+
+    private final long tickMillis;
+    private final Queue<Entry>[] slots;
+    private final int mask;
+    private final Map<String, Entry> scheduled = new ConcurrentHashMap<>();
+    private final Expirer expirer;
+    private final ScheduledExecutorService ticker;
+    // First tick not yet swept; only the ticker thread advances it
+    private volatile long nextTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    HoldExpiryWheel(long tickMillis, int slotCount, Expirer expirer) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a positive power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = slotCount - 1;
+        this.expirer = expirer;
+        this.nextTick = System.currentTimeMillis() / tickMillis;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Rescheduling a hold replaces its earlier entry
+    void schedule(String accountNumber, String holdId, long expiresAtMillis) {
+        if (ticker.isShutdown()) {
+            throw new IllegalStateException("Hold expiry wheel is closed");
+        }
+        long tick = Math.max(expiresAtMillis / tickMillis, nextTick);
+        Entry entry = new Entry(accountNumber, holdId, expiresAtMillis, (int) tick & mask);
+        Entry previous = scheduled.put(holdId, entry);
+        if (previous != null) {
+            slots[previous.slot].remove(previous);
+        }
+        slots[entry.slot].offer(entry);
+        // The sweeper may have passed this tick between reading nextTick and the offer; sweep the
+        // slot again on the ticker thread rather than leave the entry for a full rotation
+        if (nextTick > tick) {
+            try {
+                ticker.execute(() -> sweep(slots[entry.slot], System.currentTimeMillis()));
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile; nothing expires any more
+            }
+        }
+    }
+
+    // Takes a settled hold off the wheel so it is not carried until its deadline
+    void cancel(String holdId) {
+        Entry entry = scheduled.remove(holdId);
+        if (entry != null) {
+            slots[entry.slot].remove(entry);
+        }
+    }
+
+    int size() {
+        return scheduled.size();
+    }
+
+    // Catches up on every tick elapsed since the last run, so a delayed sweep loses nothing
+    void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMillis;
+        while (nextTick < currentTick) {
+            sweep(slots[(int) nextTick & mask], now);
+            nextTick++;
+        }
+    }
+
+    private void sweep(Queue<Entry> slot, long now) {
+        for (int pending = slot.size(); pending > 0; pending--) {
+            Entry entry = slot.poll();
+            if (entry == null) {
+                return;
+            }
+            if (scheduled.get(entry.holdId) != entry) {
+                // Cancelled or rescheduled while the sweep held it
+                continue;
+            }
+            if (entry.expiresAtMillis > now) {
+                slot.offer(entry);
+                continue;
+            }
+            scheduled.remove(entry.holdId, entry);
+            try {
+                expirer.expire(entry.accountNumber, entry.holdId, now);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Hold expiry failed", "holdId", entry.holdId, "error", e.getMessage());
+            }
+        }
+    }
+
+    void close() {
+        ticker.shutdownNow();
+        scheduled.clear();
+        for (Queue<Entry> slot : slots) {
+            slot.clear();
+        }
+    }
+
+    @FunctionalInterface
+    interface Expirer {
+        void expire(String accountNumber, String holdId, long nowMillis);
+    }
+
+    private record Entry(String accountNumber, String holdId, long expiresAtMillis, int slot) {
+    }
+}
@@ -0,0 +1,122 @@
+package service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Remembers the outcome of each keyed request for a fixed window. Keys are evicted in arrival
+// order, either when they age out or when the entry bound is reached, so memory stays bounded.
+class IdempotencyCache {
+    private final int maxEntries;
+    private final long windowNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> arrivalOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    IdempotencyCache(int maxEntries, Duration window) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.windowNanos = window.toNanos();
+    }
+
+    // Runs the operation once per key; repeats with the same fingerprint get the original result,
+    // or wait for it while the first submission is still running. Failed operations are forgotten
+    // so a retry runs again.
+    <V> V execute(String key, String fingerprint, Class<V> resultType, Callable<V> operation) throws Exception {
+        long now = System.nanoTime();
+        Entry entry = new Entry(key, fingerprint, now);
+        Entry existing = entries.putIfAbsent(key, entry);
+        if (existing != null && now - existing.createdNanos > windowNanos) {
+            if (entries.remove(key, existing)) {
+                size.decrementAndGet();
+            }
+            existing = entries.putIfAbsent(key, entry);
+        }
+        if (existing != null) {
+            return replay(existing, key, fingerprint, resultType);
+        }
+        arrivalOrder.offer(entry);
+        size.incrementAndGet();
+        evict(now);
+
+        try {
+            V result = operation.call();
+            entry.result.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            if (entries.remove(key, entry)) {
+                size.decrementAndGet();
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <V> V replay(Entry existing, String key, String fingerprint, Class<V> resultType) throws Exception {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            throw new IllegalStateException("Idempotency key " + key + " was already used for a different request");
+        }
+        Object result;
+        try {
+            result = existing.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (!resultType.isInstance(result)) {
+            throw new IllegalStateException("Idempotency key " + key + " was already used for a different operation");
+        }
+        return resultType.cast(result);
+    }
+
+    // One evictor at a time keeps peek and poll on the same head; other callers just skip
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Entry oldest;
+            while ((oldest = arrivalOrder.peek()) != null
+                    && (now - oldest.createdNanos > windowNanos || size.get() > maxEntries)) {
+                arrivalOrder.poll();
+                if (entries.remove(oldest.key, oldest)) {
+                    size.decrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final long createdNanos;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String key, String fingerprint, long createdNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Line-at-a-time parsing for bulk import files. CSV fields may be quoted with "" as the escape
+// but cannot span lines; NDJSON rows must be flat objects whose values are strings, numbers,
+// booleans or null. Column names are matched case-insensitively.
+final class ImportRowParser {
+
+    enum Format {
+        CSV,
+        NDJSON;
+
+        static Format of(String fileName) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unsupported import file: " + fileName
+                    + " (expected .csv, .ndjson or .jsonl)");
+        }
+    }
+
+    @FunctionalInterface
+    interface Row {
+        // Returns null for a column that is absent or empty
+        String get(String column);
+    }
+
+    private final Format format;
+    private final Map<String, Integer> header;
+
+    private ImportRowParser(Format format, Map<String, Integer> header) {
+        this.format = format;
+        this.header = header;
+    }
+
+    static ImportRowParser ndjson() {
+        return new ImportRowParser(Format.NDJSON, null);
+    }
+
+    static ImportRowParser csv(String headerLine) {
+        List<String> names = splitCsv(headerLine);
+        Map<String, Integer> header = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return new ImportRowParser(Format.CSV, header);
+    }
+
+    Row parse(String line) {
+        if (format == Format.CSV) {
+            List<String> values = splitCsv(line);
+            return column -> {
+                Integer index = header.get(column.toLowerCase(Locale.ROOT));
+                return index == null || index >= values.size() ? null : emptyToNull(values.get(index).trim());
+            };
+        }
+        Map<String, String> values = parseFlatObject(line);
+        return column -> emptyToNull(values.get(column.toLowerCase(Locale.ROOT)));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static Map<String, String> parseFlatObject(String line) {
+        Cursor in = new Cursor(line);
+        Map<String, String> values = new HashMap<>();
+        in.expect('{');
+        if (in.peek() == '}') {
+            in.position++;
+        } else {
+            do {
+                String key = in.readString().toLowerCase(Locale.ROOT);
+                in.expect(':');
+                values.put(key, in.readValue());
+            } while (in.next(',', '}') == ',');
+        }
+        if (in.peek() != 0) {
+            throw new IllegalArgumentException("Unexpected content after object at column " + in.position);
+        }
+        return values;
+    }
+
+    private static final class Cursor {
+        private final String text;
+        private int position;
+
+        Cursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        void expect(char expected) {
+            if (peek() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at column " + position);
+            }
+            position++;
+        }
+
+        char next(char first, char second) {
+            char c = peek();
+            if (c != first && c != second) {
+                throw new IllegalArgumentException("Expected '" + first + "' or '" + second + "' at column " + position);
+            }
+            position++;
+            return c;
+        }
+
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested values are not supported at column " + position);
+            }
+            int start = position;
+            while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Missing value at column " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated unicode escape at column " + position);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package service;
+
+import model.account.Account;
+import util.AsyncLogger;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Month-end interest posting fanned out over a fork-join pool. Accounts are grouped by lock
+// stripe so each leaf task owns whole stripes and workers never contend for the same lock.
+class InterestRun {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(InterestRun.class);
+    private static final int STRIPES_PER_LEAF = 8;
+
+    interface Poster {
+        // Returns the interest credited, or a negative value when the account was already posted
+        long post(Account account, YearMonth period) throws Exception;
+    }
+
+    private final YearMonth period;
+    private final Poster poster;
+    private final List<List<Account>> shards;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder credited = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong totalInterest = new AtomicLong();
+
+    InterestRun(YearMonth period, Poster poster, Iterable<Account> accounts, StripedAccountLocks locks) {
+        this.period = period;
+        this.poster = poster;
+        this.shards = new ArrayList<>(locks.stripeCount());
+        for (int i = 0; i < locks.stripeCount(); i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (Account account : accounts) {
+            shards.get(locks.indexOf(account.getAccountNumber())).add(account);
+        }
+    }
+
+    AccountService.InterestRunReport run(int parallelism) {
+        long started = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ShardRange(0, shards.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return new AccountService.InterestRunReport(
+                period,
+                processed.sum(),
+                credited.sum(),
+                skipped.sum(),
+                failed.sum(),
+                totalInterest.get(),
+                System.nanoTime() - started
+        );
+    }
+
+    private void postShard(List<Account> shard) {
+        for (Account account : shard) {
+            try {
+                long interest = poster.post(account, period);
+                if (interest < 0) {
+                    skipped.increment();
+                } else if (interest > 0) {
+                    credited.increment();
+                    totalInterest.addAndGet(interest);
+                }
+            } catch (Exception e) {
+                failed.increment();
+                LOGGER.warn("Interest posting failed", "accountNumber", account.getAccountNumber(),
+                        "period", period, "error", e.getMessage());
+            }
+            processed.increment();
+        }
+    }
+
+    private final class ShardRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ShardRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= STRIPES_PER_LEAF) {
+                for (int i = from; i < to; i++) {
+                    postShard(shards.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ShardRange(from, mid), new ShardRange(mid, to));
+        }
+    }
+}
@@ -3,25 +3,36 @@ package service;
 import model.loan.*;
 import model.user.Customer;
 import repository.LoanRepository;
-import repository.AccountRepository;
 import exception.InvalidLoanException;
+import util.AsyncLogger;
+import util.IdGenerator;
+import util.Money;
+import util.TimeOrderedIdGenerator;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.UUID;
-import model.account.Account;
 
 public class LoanService {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(LoanService.class);
+
     private final LoanRepository loanRepository;
-    private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final IdGenerator idGenerator;
+
+    // Balance changes go through the same AccountService the rest of the application uses, so
+    // they share its account locks
+    public LoanService(LoanRepository loanRepository, AccountService accountService) {
+        this(loanRepository, accountService, TimeOrderedIdGenerator.shared());
+    }
 
-    public LoanService(LoanRepository loanRepository, AccountRepository accountRepository) {
+    public LoanService(LoanRepository loanRepository, AccountService accountService, IdGenerator idGenerator) {
         this.loanRepository = loanRepository;
-        this.accountRepository = accountRepository;
+        this.accountService = accountService;
+        this.idGenerator = idGenerator;
     }
 
-    public Loan createPersonalLoan(Customer customer, double amount, int tenureMonths) throws InvalidLoanException {
+    public Loan createPersonalLoan(Customer customer, long amount, int tenureMonths) throws InvalidLoanException {
         try {
-            String loanId = "LOAN-" + UUID.randomUUID();
+            String loanId = idGenerator.nextId("LOAN-");
             Loan loan = new PersonalLoan(loanId, customer, amount, tenureMonths);
             loanRepository.save(loan);
             return loan;
@@ -30,9 +41,9 @@ public class LoanService {
         }
     }
 
-    public Loan createHomeLoan(Customer customer, double amount, int tenureMonths, String propertyAddress, double propertyValue) throws InvalidLoanException {
+    public Loan createHomeLoan(Customer customer, long amount, int tenureMonths, String propertyAddress, long propertyValue) throws InvalidLoanException {
         try {
-            String loanId = "LOAN-" + UUID.randomUUID();
+            String loanId = idGenerator.nextId("LOAN-");
             Loan loan = new HomeLoan(loanId, customer, amount, tenureMonths, propertyAddress, propertyValue);
             loanRepository.save(loan);
             return loan;
@@ -41,9 +52,9 @@ public class LoanService {
         }
     }
 
-    public Loan createAutoLoan(Customer customer, double amount, int tenureMonths, String vehicleModel, double vehicleValue, int registrationYear) throws InvalidLoanException {
+    public Loan createAutoLoan(Customer customer, long amount, int tenureMonths, String vehicleModel, long vehicleValue, int registrationYear) throws InvalidLoanException {
         try {
-            String loanId = "LOAN-" + UUID.randomUUID();
+            String loanId = idGenerator.nextId("LOAN-");
             Loan loan = new AutoLoan(loanId, customer, amount, tenureMonths, vehicleModel, vehicleValue, registrationYear);
             loanRepository.save(loan);
             return loan;
@@ -92,67 +103,98 @@ public class LoanService {
 
         loan.setStatus(LoanStatus.APPROVED);
         loanRepository.update(loan);
-        System.out.println("[OK] Loan approved! ID: " + loanId);
+        LOGGER.info("Loan approved", "loanId", loanId);
     }
 
+    // Activation and payments hold the loan's monitor from the status check to the loan update, so
+    // two concurrent calls on one loan cannot both pass the check and both move money
     public void activateLoan(String loanId, String disbursalAccountNumber) throws Exception {
         Loan loan = loanRepository.findById(loanId);
-        Account account = accountRepository.findByAccountNumber(disbursalAccountNumber);
 
         if (loan == null) {
             throw new Exception("Loan not found!");
         }
-        if (account == null) {
-            throw new Exception("Account not found!");
-        }
 
-        if (!loan.getStatus().equals(LoanStatus.APPROVED)) {
-            throw new Exception("Loan must be approved first!");
-        }
+        synchronized (loan) {
+            if (!loan.getStatus().equals(LoanStatus.APPROVED)) {
+                throw new Exception("Loan must be approved first!");
+            }
 
-        account.deposit(loan.getPrincipal());
+            accountService.creditLoanDisbursement(disbursalAccountNumber, loanId, loan.getPrincipal());
 
-        loan.setStatus(LoanStatus.ACTIVE);
-        loan.setDisbursementDate(LocalDate.now());
+            loan.setStatus(LoanStatus.ACTIVE);
+            loan.setDisbursementDate(LocalDate.now());
 
-        account.recordTransaction("LOAN DISBURSEMENT - " + loan.getPrincipal());
+            loanRepository.update(loan);
+        }
 
-        loanRepository.update(loan);
-        accountRepository.update(account);
+        LOGGER.info("Loan activated", "loanId", loanId, "amount", Money.format(loan.getPrincipal()), "accountNumber", disbursalAccountNumber);
+    }
 
-        System.out.println("[OK] Loan activated! EUR " + loan.getPrincipal() + " disbursed to " + disbursalAccountNumber);
+    // Debits the repayment account before recording the payment; a refused debit records nothing,
+    // and a payment that cannot be recorded credits the debit back
+    public void makePayment(String loanId, String accountNumber, long paymentAmount) throws Exception {
+        Loan loan = findLoan(loanId);
+
+        synchronized (loan) {
+            checkPayable(loan, paymentAmount);
+            accountService.debitLoanRepayment(accountNumber, loanId, paymentAmount);
+            try {
+                recordPayment(loan, paymentAmount);
+            } catch (RuntimeException e) {
+                try {
+                    accountService.reverseLoanRepayment(accountNumber, loanId, paymentAmount);
+                } catch (Exception reversal) {
+                    LOGGER.error("Loan repayment could not be reversed", "loanId", loanId,
+                            "accountNumber", accountNumber, "amount", Money.format(paymentAmount),
+                            "error", reversal.getMessage());
+                }
+                throw new Exception("Payment failed: " + e.getMessage());
+            }
+        }
     }
 
-    public void makePayment(String loanId, double paymentAmount) throws Exception {
+    public void makePayment(String loanId, long paymentAmount) throws Exception {
+        Loan loan = findLoan(loanId);
+
+        synchronized (loan) {
+            checkPayable(loan, paymentAmount);
+            recordPayment(loan, paymentAmount);
+        }
+    }
+
+    private Loan findLoan(String loanId) throws Exception {
         Loan loan = loanRepository.findById(loanId);
 
         if (loan == null) {
             throw new Exception("Loan not found!");
         }
+        return loan;
+    }
 
+    // Caller holds the loan's monitor
+    private void checkPayable(Loan loan, long paymentAmount) throws Exception {
         if (!loan.getStatus().equals(LoanStatus.ACTIVE)) {
             throw new Exception("Loan is not active! Current status: " + loan.getStatus());
         }
 
-        double emi = loan.getEmiAmount();
+        long emi = loan.getEmiAmount();
 
         if (paymentAmount < emi) {
-            throw new Exception("[LOW] EMI is EUR " + String.format("%.2f", emi) + ", but you paid EUR " + String.format("%.2f", paymentAmount));
+            throw new Exception("[LOW] EMI is EUR " + Money.format(emi) + ", but you paid EUR " + Money.format(paymentAmount));
         }
+    }
 
-        double remainingBefore = loan.getRemainingBalance();
-        double remainingAfter = remainingBefore - paymentAmount;
+    // Caller holds the loan's monitor. A failed update takes the payment and status change back out.
+    private void recordPayment(Loan loan, long paymentAmount) {
+        String loanId = loan.getLoanId();
 
-        if (remainingAfter <= 0) {
-            loan.setStatus(LoanStatus.PAID_OFF);
-            System.out.println("[OK] Loan paid off! Thank you for paying EUR " + String.format("%.2f", paymentAmount));
-        } else {
-            System.out.println("[INFO] Payment received! EUR " + String.format("%.2f", paymentAmount));
-            System.out.println("[INFO] Remaining balance: EUR " + String.format("%.2f", remainingAfter));
-        }
+        LoanStatus statusBefore = loan.getStatus();
+        long remainingBefore = loan.getRemainingBalance();
+        long remainingAfter = remainingBefore - paymentAmount;
 
         LoanPayment payment = new LoanPayment(
-                "PAY-" + UUID.randomUUID().toString(),
+                idGenerator.nextId("PAY-"),
                 loan,
                 paymentAmount,
                 java.time.YearMonth.now(),
@@ -160,9 +202,23 @@ public class LoanService {
         );
 
         loan.addPayment(payment);
-        loanRepository.update(loan);
+        if (remainingAfter <= 0) {
+            loan.setStatus(LoanStatus.PAID_OFF);
+        }
+        try {
+            loanRepository.update(loan);
+        } catch (RuntimeException e) {
+            loan.removePayment(payment);
+            loan.setStatus(statusBefore);
+            throw e;
+        }
 
-        System.out.println("[OK] Payment recorded!");
+        if (remainingAfter <= 0) {
+            LOGGER.info("Loan paid off", "loanId", loanId, "amount", Money.format(paymentAmount));
+        } else {
+            LOGGER.info("Payment received", "loanId", loanId, "amount", Money.format(paymentAmount), "remaining", Money.format(remainingAfter));
+        }
+        LOGGER.info("Payment recorded", "loanId", loanId, "paymentId", payment.paymentId());
     }
 
     public void rejectLoan(String loanId, String reason) throws Exception {
@@ -176,34 +232,28 @@ public class LoanService {
 
         loan.rejectLoan(reason);
         loanRepository.update(loan);
-        System.out.println("Loan " + loanId + " rejected. Reason: " + reason);
+        LOGGER.info("Loan rejected", "loanId", loanId, "reason", reason);
     }
 
-    public double getTotalOutstandingBalance() {
-        return loanRepository.findAll().stream()
-                .filter(l -> l.getStatus() == LoanStatus.ACTIVE)
-                .mapToDouble(Loan::getRemainingBalance)
-                .sum();
+    public long getTotalOutstandingBalance() {
+        return loanRepository.getTotalOutstandingPrincipal();
     }
 
-    public double getAverageLoanAmount() {
-        return loanRepository.findAll().stream()
-                .mapToDouble(Loan::getPrincipal)
-                .average()
-                .orElse(0.0);
+    public long getAverageLoanAmount() {
+        return loanRepository.getAverageLoanAmount();
     }
 
-    public double getTotalDisbursedAmount() {
+    public long getTotalDisbursedAmount() {
         return loanRepository.findAll().stream()
-                .mapToDouble(Loan::getPrincipal)
-                .sum();
+                .mapToLong(Loan::getPrincipal)
+                .reduce(0L, Money::add);
     }
 
-    public Loan createEducationLoan(Customer customer, double amount, int tenureMonths,
+    public Loan createEducationLoan(Customer customer, long amount, int tenureMonths,
                                     String institutionName, String courseType, int courseDuration)
             throws InvalidLoanException {
         try {
-            String loanId = "LOAN-" + UUID.randomUUID();
+            String loanId = idGenerator.nextId("LOAN-");
             Loan loan = new EducationLoan(loanId, customer, amount, tenureMonths, institutionName, courseType, courseDuration);
             loanRepository.save(loan);
             return loan;
@@ -212,11 +262,11 @@ public class LoanService {
         }
     }
 
-    public Loan createBusinessLoan(Customer customer, double amount, int tenureMonths,
-                                   String businessName, String businessType, double annualTurnover, double collateralValue)
+    public Loan createBusinessLoan(Customer customer, long amount, int tenureMonths,
+                                   String businessName, String businessType, long annualTurnover, long collateralValue)
             throws InvalidLoanException {
         try {
-            String loanId = "LOAN-" + UUID.randomUUID();
+            String loanId = idGenerator.nextId("LOAN-");
             Loan loan = new BusinessLoan(loanId, customer, amount, tenureMonths, businessName, businessType, annualTurnover, collateralValue);
             loanRepository.save(loan);
             return loan;
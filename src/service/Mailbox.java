@@ -0,0 +1,46 @@
+package service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Serial executor for one account: messages run one at a time in submission order on whatever
+// virtual thread currently owns the mailbox, and an idle mailbox holds no thread at all.
+class Mailbox implements Executor {
+    private static final int MAX_MESSAGES_PER_TURN = 64;
+
+    private final Executor carrier;
+    private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    Mailbox(Executor carrier) {
+        this.carrier = carrier;
+    }
+
+    @Override
+    public void execute(Runnable message) {
+        messages.offer(message);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            carrier.execute(this::drain);
+        }
+    }
+
+    // Yields after a bounded turn so one busy account cannot monopolise a carrier thread
+    private void drain() {
+        Runnable message;
+        int processed = 0;
+        while (processed < MAX_MESSAGES_PER_TURN && (message = messages.poll()) != null) {
+            message.run();
+            processed++;
+        }
+        scheduled.set(false);
+        if (!messages.isEmpty()) {
+            schedule();
+        }
+    }
+}
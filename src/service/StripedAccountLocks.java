@@ -0,0 +1,57 @@
+package service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+class StripedAccountLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    StripedAccountLocks(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    void lock(String accountNumber) {
+        stripes[indexOf(accountNumber)].lock();
+    }
+
+    void unlock(String accountNumber) {
+        stripes[indexOf(accountNumber)].unlock();
+    }
+
+    // Both stripes are always taken lowest index first so opposing transfers cannot deadlock
+    void lockPair(String first, String second) {
+        int a = indexOf(first);
+        int b = indexOf(second);
+        if (a == b) {
+            stripes[a].lock();
+            return;
+        }
+        stripes[Math.min(a, b)].lock();
+        stripes[Math.max(a, b)].lock();
+    }
+
+    void unlockPair(String first, String second) {
+        int a = indexOf(first);
+        int b = indexOf(second);
+        stripes[Math.max(a, b)].unlock();
+        if (a != b) {
+            stripes[Math.min(a, b)].unlock();
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    int indexOf(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -1,22 +1,41 @@
 package service;
 
+import model.transaction.AccountRanking;
+import model.transaction.ActivityMetric;
+import model.transaction.ActivityWindow;
+import model.transaction.CashFlowSummary;
+import model.transaction.PageDirection;
 import model.transaction.Transaction;
+import model.transaction.TransactionPage;
 import model.transaction.TransactionType;
 import model.account.Account;
 import repository.TransactionRepository;
 import exception.InvalidTransactionException;
+import util.AmountHistogram;
+import util.IdGenerator;
+import util.Money;
+import util.TimeOrderedIdGenerator;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.UUID;
 
 public class TransactionService {
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
+    private final IdGenerator idGenerator;
 
     public TransactionService(TransactionRepository transactionRepository) {
+        this(transactionRepository, TimeOrderedIdGenerator.shared());
+    }
+
+    public TransactionService(TransactionRepository transactionRepository, IdGenerator idGenerator) {
         this.transactionRepository = transactionRepository;
+        this.idGenerator = idGenerator;
     }
 
-    public Transaction recordTransaction(Account account, double amount, TransactionType type, String description)
+    public Transaction recordTransaction(Account account, long amount, TransactionType type, String description)
             throws InvalidTransactionException {
         if (account == null) {
             throw new InvalidTransactionException("Transaction", "Account cannot be null");
@@ -25,7 +44,7 @@ public class TransactionService {
             throw new InvalidTransactionException("Transaction", "Amount must be positive", amount);
         }
 
-        String transactionId = "TXN-" + UUID.randomUUID();
+        String transactionId = idGenerator.nextId("TXN-");
         Transaction transaction = new Transaction(
                 transactionId,
                 account,
@@ -47,6 +66,18 @@ public class TransactionService {
         return transactionRepository.findByAccount(account);
     }
 
+    // Pass null as the cursor for the first page, then each page's nextCursor for the one after it
+    public TransactionPage getTransactionPage(Account account, String afterCursor, int limit, PageDirection direction) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account cannot be null");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return transactionRepository.findPageByAccountNumber(account.getAccountNumber(), afterCursor, limit,
+                direction == null ? PageDirection.NEWEST_FIRST : direction);
+    }
+
     public List<Transaction> getTransactionsByType(TransactionType type) {
         return transactionRepository.findByType(type);
     }
@@ -59,10 +90,31 @@ public class TransactionService {
         return transactionRepository.findWithdrawals();
     }
 
-    public List<Transaction> getHighValueTransactions(double threshold) {
+    public List<Transaction> getHighValueTransactions(long threshold) {
         return transactionRepository.findTransactionsAbove(threshold);
     }
 
+    // Transactions above the all-time p99 amount
+    public List<Transaction> getHighValueTransactions() {
+        return getHighValueTransactions(getAmountPercentiles(null, null, null).p99());
+    }
+
+    public AmountPercentiles getAmountPercentiles(TransactionType type, LocalDate from, LocalDate to) {
+        return AmountPercentiles.of(transactionRepository.getAmountHistogram(type, from, to));
+    }
+
+    public AmountPercentiles getAmountPercentilesForDay(TransactionType type, LocalDate date) {
+        return getAmountPercentiles(type, date, date);
+    }
+
+    public List<AccountRanking> getTopAccountsByCount(ActivityWindow window, int limit) {
+        return transactionRepository.findTopAccounts(window, ActivityMetric.COUNT, limit);
+    }
+
+    public List<AccountRanking> getTopAccountsByAmount(ActivityWindow window, int limit) {
+        return transactionRepository.findTopAccounts(window, ActivityMetric.AMOUNT, limit);
+    }
+
     public List<Transaction> getTransactionsByDateRange(LocalDate startDate, LocalDate endDate) {
         return transactionRepository.findByDateRange(startDate, endDate);
     }
@@ -71,28 +123,39 @@ public class TransactionService {
         return transactionRepository.findTransactionsByDate(date);
     }
 
-    public TransactionStatistics getStatistics() {
-        List<Transaction> allTransactions = transactionRepository.findAll();
-
-        double totalAmount = allTransactions.stream()
-                .mapToDouble(Transaction::amount)
-                .sum();
+    // Answered from hourly and daily rollups; the window is widened to whole hours
+    public CashFlowSummary getCashFlow(LocalDateTime from, LocalDateTime to) {
+        return transactionRepository.getCashFlow(from, to);
+    }
 
-        double averageAmount = allTransactions.stream()
-                .mapToDouble(Transaction::amount)
-                .average()
-                .orElse(0.0);
+    public CashFlowSummary getCashFlowForDay(LocalDate date) {
+        return transactionRepository.getCashFlow(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-        long totalCount = allTransactions.size();
-        long depositCount = transactionRepository.findDeposits().size();
-        long withdrawalCount = transactionRepository.findWithdrawals().size();
-        long transferCount = transactionRepository.findTransfers().size();
+    public CashFlowSummary getCashFlowForMonth(YearMonth month) {
+        return transactionRepository.getCashFlow(month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay());
+    }
 
-        return new TransactionStatistics(totalAmount, averageAmount, totalCount, depositCount, withdrawalCount, transferCount);
+    public TransactionStatistics getStatistics() {
+        long totalCount = transactionRepository.count();
+        long depositCount = transactionRepository.countByType(TransactionType.DEPOSIT);
+        long withdrawalCount = transactionRepository.countByType(TransactionType.WITHDRAWAL);
+        long transferCount = transactionRepository.countByType(TransactionType.TRANSFER);
+
+        return new TransactionStatistics(
+                transactionRepository.getTotalTransactionAmount(),
+                transactionRepository.getAverageTransactionAmount(),
+                totalCount,
+                depositCount,
+                withdrawalCount,
+                transferCount,
+                getAmountPercentiles(null, null, null)
+        );
     }
 
     public String getTransactionSummary(Transaction transaction) {
-        return transaction.type() + ": Euro " + String.format("%.2f", transaction.amount());
+        return transaction.type() + ": Euro " + Money.format(transaction.amount());
     }
 
     public String getTransactionDetails(String transactionId) {
@@ -102,45 +165,57 @@ public class TransactionService {
         }
 
         return String.format(
-                "Transaction ID: %s | Amount: Euro %.2f | Type: %s | Time: %s",
+                "Transaction ID: %s | Amount: Euro %s | Type: %s | Time: %s",
                 transactionId,
-                transaction.amount(),
+                Money.format(transaction.amount()),
                 transaction.type(),
                 transaction.timestamp()
         );
     }
 
-    public double calculateTotalDeposits() {
-        return transactionRepository.findDeposits().stream()
-                .mapToDouble(Transaction::amount)
-                .sum();
+    public long calculateTotalDeposits() {
+        return transactionRepository.getTotalAmountByType(TransactionType.DEPOSIT);
     }
 
-    public double calculateTotalWithdrawals() {
-        return transactionRepository.findWithdrawals().stream()
-                .mapToDouble(Transaction::amount)
-                .sum();
+    public long calculateTotalWithdrawals() {
+        return transactionRepository.getTotalAmountByType(TransactionType.WITHDRAWAL);
     }
 
-    public double getNetCashFlow() {
-        double deposits = calculateTotalDeposits();
-        double withdrawals = calculateTotalWithdrawals();
-        return deposits - withdrawals;
+    public long getNetCashFlow() {
+        long deposits = calculateTotalDeposits();
+        long withdrawals = calculateTotalWithdrawals();
+        return Money.subtract(deposits, withdrawals);
     }
 
     public record TransactionStatistics(
-            double totalAmount,
-            double averageAmount,
+            long totalAmount,
+            long averageAmount,
             long totalCount,
             long depositCount,
             long withdrawalCount,
-            long transferCount
+            long transferCount,
+            AmountPercentiles amountPercentiles
     ) {
         public String getSummary() {
             return String.format(
-                    "Total Amount: Euro %.2f | Average: Euro %.2f | Total Txns: %d | Deposits: %d | Withdrawals: %d | Transfers: %d",
-                    totalAmount, averageAmount, totalCount, depositCount, withdrawalCount, transferCount
+                    "Total Amount: Euro %s | Average: Euro %s | Total Txns: %d | Deposits: %d | Withdrawals: %d | Transfers: %d | %s",
+                    Money.format(totalAmount), Money.format(averageAmount), totalCount, depositCount, withdrawalCount, transferCount,
+                    amountPercentiles.getSummary()
             );
         }
     }
+
+    // Amounts are within 1/128 of the exact order statistics
+    public record AmountPercentiles(long count, long p50, long p90, long p99, long p999) {
+
+        static AmountPercentiles of(AmountHistogram histogram) {
+            return new AmountPercentiles(histogram.getCount(), histogram.quantile(0.5), histogram.quantile(0.9),
+                    histogram.quantile(0.99), histogram.quantile(0.999));
+        }
+
+        public String getSummary() {
+            return String.format("p50: Euro %s | p90: Euro %s | p99: Euro %s | p99.9: Euro %s",
+                    Money.format(p50), Money.format(p90), Money.format(p99), Money.format(p999));
+        }
+    }
 }
\ No newline at end of file
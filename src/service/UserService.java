@@ -4,14 +4,24 @@ import model.user.*;
 import repository.UserRepository;
 import exception.UserOperationException;
 import exception.InvalidAccountException;
+import util.AsyncLogger;
+import util.IdGenerator;
+import util.TimeOrderedIdGenerator;
 import java.util.List;
-import java.util.UUID;
 
 public class UserService {
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(UserService.class);
+
     private final UserRepository userRepository;
-    
+    private final IdGenerator idGenerator;
+
     public UserService(UserRepository userRepository) {
+        this(userRepository, TimeOrderedIdGenerator.shared());
+    }
+
+    public UserService(UserRepository userRepository, IdGenerator idGenerator) {
         this.userRepository = userRepository;
+        this.idGenerator = idGenerator;
     }
 
     public Customer createCustomer(String name, String email, String password, String phone, String address) throws UserOperationException {
@@ -24,7 +34,7 @@ public class UserService {
         if (password == null || password.isBlank()) {
             throw new UserOperationException("Customer", "create", "Password cannot be null or blank");
         }
-        String userId = "CUST-" + java.util.UUID.randomUUID();
+        String userId = idGenerator.nextId("CUST-");
         Customer customer = new Customer(userId, name, email, password, phone, address);
         userRepository.save(customer);
         return customer;
@@ -38,10 +48,10 @@ public class UserService {
             throw new UserOperationException("Teller", "create", "Branch code cannot be null or blank");
         }
 
-        String userId = "TELLER-" + UUID.randomUUID();
+        String userId = idGenerator.nextId("TELLER-");
         Teller teller = new Teller(userId, name, email, password, branchCode);
         userRepository.save(teller);
-        System.out.println("Teller created: " + userId);
+        LOGGER.info("Teller created", "userId", userId);
         return teller;
     }
 
@@ -53,10 +63,10 @@ public class UserService {
             throw new UserOperationException("Manager", "create", "Branch cannot be null or blank");
         }
 
-        String userId = "MGR-" + UUID.randomUUID();
+        String userId = idGenerator.nextId("MGR-");
         BankManager manager = new BankManager(userId, name, email, password, branch);
         userRepository.save(manager);
-        System.out.println("Bank Manager created: " + userId);
+        LOGGER.info("Bank manager created", "userId", userId);
         return manager;
     }
 
@@ -65,10 +75,10 @@ public class UserService {
             throw new UserOperationException("Admin", "create", "Name cannot be null or blank");
         }
         
-        String userId = "ADMIN-" + UUID.randomUUID();
+        String userId = idGenerator.nextId("ADMIN-");
         Administrator admin = new Administrator(userId, name, email, password);
         userRepository.save(admin);
-        System.out.println("Administrator created: " + userId);
+        LOGGER.info("Administrator created", "userId", userId);
         return admin;
     }
 
@@ -197,12 +207,12 @@ public class UserService {
         };
         
         userRepository.update(updatedUser);
-        System.out.println("User " + userId + " email updated.");
+        LOGGER.info("User email updated", "userId", userId);
     }
 
     public void deleteUser(String userId) {
         userRepository.delete(userId);
-        System.out.println("User " + userId + " deleted.");
+        LOGGER.info("User deleted", "userId", userId);
     }
     
 
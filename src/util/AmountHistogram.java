@@ -0,0 +1,129 @@
+package util;
+
+// Log-linear histogram over non-negative longs such as amounts in cents. Values below 128 are
+// counted exactly; above that each power of two is split into 64 equal slots, so any reported
+// quantile is within 1/128 of the true value. Slot groups are allocated on first use, so a
+// histogram costs 512 bytes per power of two actually seen and never grows beyond that.
+// Histograms merge by adding counts and support removal, so they can track deletions.
+// Not thread-safe.
+public final class AmountHistogram {
+    private static final int LINEAR_BITS = 7;
+    private static final int LINEAR_LIMIT = 1 << LINEAR_BITS;
+    private static final int SLOTS_PER_GROUP = LINEAR_LIMIT >> 1;
+    private static final int GROUPS = Long.SIZE - LINEAR_BITS;
+
+    private final long[][] groups = new long[GROUPS][];
+    private long count;
+
+    public AmountHistogram() {
+    }
+
+    public void record(long value) {
+        add(value, 1);
+    }
+
+    public void remove(long value) {
+        add(value, -1);
+    }
+
+    private void add(long value, long delta) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histogram values must be non-negative: " + value);
+        }
+        int group = groupOf(value);
+        long[] slots = groups[group];
+        if (slots == null) {
+            slots = new long[group == 0 ? LINEAR_LIMIT : SLOTS_PER_GROUP];
+            groups[group] = slots;
+        }
+        slots[slotOf(value, group)] += delta;
+        count += delta;
+    }
+
+    public void merge(AmountHistogram other) {
+        for (int group = 0; group < GROUPS; group++) {
+            long[] source = other.groups[group];
+            if (source == null) {
+                continue;
+            }
+            long[] target = groups[group];
+            if (target == null) {
+                groups[group] = source.clone();
+                continue;
+            }
+            for (int i = 0; i < source.length; i++) {
+                target[i] += source[i];
+            }
+        }
+        count += other.count;
+    }
+
+    public AmountHistogram copy() {
+        AmountHistogram copy = new AmountHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Nearest-rank quantile, reported as the midpoint of the slot holding that rank; 0 when empty
+    public long quantile(double q) {
+        if (q < 0 || q > 1 || Double.isNaN(q)) {
+            throw new IllegalArgumentException("Quantile must be within [0, 1]: " + q);
+        }
+        if (count <= 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int group = 0; group < GROUPS; group++) {
+            long[] slots = groups[group];
+            if (slots == null) {
+                continue;
+            }
+            for (int slot = 0; slot < slots.length; slot++) {
+                seen += slots[slot];
+                if (seen >= rank) {
+                    return midpointOf(group, slot);
+                }
+            }
+        }
+        return highestRecorded();
+    }
+
+    private long highestRecorded() {
+        for (int group = GROUPS - 1; group >= 0; group--) {
+            long[] slots = groups[group];
+            if (slots == null) {
+                continue;
+            }
+            for (int slot = slots.length - 1; slot >= 0; slot--) {
+                if (slots[slot] != 0) {
+                    return midpointOf(group, slot);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static int groupOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return 0;
+        }
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (LINEAR_BITS - 1);
+    }
+
+    private static int slotOf(long value, int group) {
+        return group == 0 ? (int) value : (int) (value >>> group) - SLOTS_PER_GROUP;
+    }
+
+    private static long midpointOf(int group, int slot) {
+        if (group == 0) {
+            return slot;
+        }
+        long lower = (long) (slot + SLOTS_PER_GROUP) << group;
+        return lower + ((1L << group) >>> 1);
+    }
+}
@@ -0,0 +1,198 @@
+package util;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+public final class AsyncLogger {
+
+    private static final int RING_CAPACITY = 1 << 14;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static volatile LogLevel threshold = LogLevel.parse(System.getProperty("smartbank.log.level"), LogLevel.INFO);
+    private static final RingBuffer RING = new RingBuffer(RING_CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Writer WRITER = new Writer(System.out);
+
+    static {
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncLogger::flush, "async-logger-flush"));
+    }
+
+    private final String name;
+
+    private AsyncLogger(String name) {
+        this.name = name;
+    }
+
+    public static AsyncLogger getLogger(Class<?> owner) {
+        return new AsyncLogger(owner.getSimpleName());
+    }
+
+    public static void setLevel(LogLevel level) {
+        threshold = level;
+    }
+
+    public static LogLevel getLevel() {
+        return threshold;
+    }
+
+    public static long getDroppedEvents() {
+        return DROPPED.get();
+    }
+
+    public static void flush() {
+        WRITER.drain();
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.isEnabledFor(threshold);
+    }
+
+    public void debug(String message, Object... fields) {
+        log(LogLevel.DEBUG, message, fields);
+    }
+
+    public void info(String message, Object... fields) {
+        log(LogLevel.INFO, message, fields);
+    }
+
+    public void warn(String message, Object... fields) {
+        log(LogLevel.WARN, message, fields);
+    }
+
+    public void error(String message, Object... fields) {
+        log(LogLevel.ERROR, message, fields);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, message.get());
+        }
+    }
+
+    // Fields are alternating key/value pairs and are only rendered on the writer thread
+    public void log(LogLevel level, String message, Object... fields) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        if (!RING.offer(new Event(System.currentTimeMillis(), level, name, message, fields))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private record Event(long epochMillis, LogLevel level, String logger, String message, Object[] fields) {
+
+        void appendTo(StringBuilder line) {
+            TIMESTAMP_FORMATTER.formatTo(Instant.ofEpochMilli(epochMillis), line);
+            line.append(' ').append(level);
+            if (level.name().length() < 5) {
+                line.append(' ');
+            }
+            line.append(' ').append(logger).append(" - ").append(message);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=').append(fields[i + 1]);
+            }
+        }
+    }
+
+    // Bounded multi-producer queue: producers claim a slot with one CAS on the tail and publish
+    // through the per-slot sequence, so no producer ever blocks another beyond a retry.
+    private static final class RingBuffer {
+        private final Event[] slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final int mask;
+        private long head;
+
+        RingBuffer(int capacity) {
+            this.slots = new Event[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Event event) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots[index] = event;
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (difference < 0) {
+                    return false;
+                }
+            }
+        }
+
+        Event poll() {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            Event event = slots[index];
+            slots[index] = null;
+            sequences.set(index, head + slots.length);
+            head++;
+            return event;
+        }
+    }
+
+    private static final class Writer extends Thread {
+        private static final int MAX_BATCH_CHARS = 64 * 1024;
+
+        private final PrintStream out;
+        private final StringBuilder batch = new StringBuilder(MAX_BATCH_CHARS);
+
+        Writer(PrintStream out) {
+            super("async-logger");
+            this.out = out;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                if (!drain()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        synchronized boolean drain() {
+            boolean wrote = false;
+            Event event;
+            while ((event = RING.poll()) != null) {
+                event.appendTo(batch);
+                batch.append(System.lineSeparator());
+                wrote = true;
+                if (batch.length() >= MAX_BATCH_CHARS) {
+                    write();
+                }
+            }
+            if (wrote) {
+                write();
+            }
+            return wrote;
+        }
+
+        private void write() {
+            out.print(batch);
+            out.flush();
+            batch.setLength(0);
+        }
+    }
+}
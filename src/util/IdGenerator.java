@@ -0,0 +1,10 @@
+package util;
+
+public interface IdGenerator {
+
+    long nextId();
+
+    default String nextId(String prefix) {
+        return prefix + TimeOrderedIdGenerator.toCompactString(nextId());
+    }
+}
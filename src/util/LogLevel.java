@@ -0,0 +1,25 @@
+package util;
+
+public enum LogLevel {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF;
+
+    public boolean isEnabledFor(LogLevel threshold) {
+        return this != OFF && ordinal() >= threshold.ordinal();
+    }
+
+    public static LogLevel parse(String value, LogLevel fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LogLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
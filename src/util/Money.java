@@ -0,0 +1,136 @@
+package util;
+
+import java.math.RoundingMode;
+
+// Monetary amounts are plain longs holding euro cents, so arithmetic on them never allocates.
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_MAJOR = 100;
+    public static final long ZERO = 0;
+
+    // Products within a millionth of a cent of an integer are treated as exact, absorbing the
+    // binary representation error of rates such as 0.01 before a rounding mode is applied
+    private static final double SNAP_FACTOR = 1_000_000.0;
+    private static final double MAX_SNAPPABLE = 1L << 52;
+
+    private Money() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    public static long ofMajor(long major) {
+        return Math.multiplyExact(major, MINOR_PER_MAJOR);
+    }
+
+    public static long ofMajor(double major) {
+        return round(major * MINOR_PER_MAJOR, RoundingMode.HALF_EVEN);
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_PER_MAJOR;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minor, long factor) {
+        return Math.multiplyExact(minor, factor);
+    }
+
+    public static long applyRate(long minor, double rate, RoundingMode mode) {
+        return round(minor * rate, mode);
+    }
+
+    public static long divide(long minor, long divisor, RoundingMode mode) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long quotient = minor / divisor;
+        long remainder = minor % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = Long.signum(minor) * Long.signum(divisor);
+        long twiceRemainder = Math.abs(remainder) * 2;
+        long absDivisor = Math.abs(divisor);
+        boolean increment = switch (mode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> twiceRemainder >= absDivisor;
+            case HALF_DOWN -> twiceRemainder > absDivisor;
+            case HALF_EVEN -> twiceRemainder > absDivisor || (twiceRemainder == absDivisor && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary for " + minor + " / " + divisor);
+        };
+        return increment ? quotient + sign : quotient;
+    }
+
+    public static long round(double minor, RoundingMode mode) {
+        if (!Double.isFinite(minor) || Math.abs(minor) >= Long.MAX_VALUE) {
+            throw new ArithmeticException("Amount out of range: " + minor);
+        }
+        double value = Math.abs(minor) < MAX_SNAPPABLE / SNAP_FACTOR
+                ? Math.rint(minor * SNAP_FACTOR) / SNAP_FACTOR
+                : minor;
+        double rounded = switch (mode) {
+            case UP -> value < 0 ? Math.floor(value) : Math.ceil(value);
+            case DOWN -> value < 0 ? Math.ceil(value) : Math.floor(value);
+            case CEILING -> Math.ceil(value);
+            case FLOOR -> Math.floor(value);
+            case HALF_UP -> Math.copySign(Math.floor(Math.abs(value) + 0.5), value);
+            case HALF_DOWN -> Math.copySign(Math.ceil(Math.abs(value) - 0.5), value);
+            case HALF_EVEN -> Math.rint(value);
+            case UNNECESSARY -> {
+                if (value != Math.rint(value)) {
+                    throw new ArithmeticException("Rounding necessary for " + minor);
+                }
+                yield value;
+            }
+        };
+        return (long) rounded;
+    }
+
+    public static long parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new NumberFormatException("Amount cannot be blank");
+        }
+        String value = text.trim();
+        boolean negative = value.startsWith("-");
+        int start = negative || value.startsWith("+") ? 1 : 0;
+        int point = value.indexOf('.');
+        String whole = point < 0 ? value.substring(start) : value.substring(start, point);
+        String fraction = point < 0 ? "" : value.substring(point + 1);
+        if ((whole.isEmpty() && fraction.isEmpty()) || fraction.length() > SCALE
+                || !isDigits(whole) || !isDigits(fraction)) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        long minor = whole.isEmpty() ? 0 : ofMajor(Long.parseLong(whole));
+        if (!fraction.isEmpty()) {
+            long cents = Long.parseLong(fraction);
+            minor = add(minor, fraction.length() == 1 ? cents * 10 : cents);
+        }
+        return negative ? -minor : minor;
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String format(long minor) {
+        long major = Math.abs(minor / MINOR_PER_MAJOR);
+        long cents = Math.abs(minor % MINOR_PER_MAJOR);
+        return (minor < 0 ? "-" : "") + major + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
@@ -0,0 +1,88 @@
+package util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class TimeOrderedIdGenerator implements IdGenerator {
+    // Layout: [1 bit unused][41 bits millis since EPOCH][10 bits node][12 bits sequence]
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int LEASE_SIZE = 64;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int COMPACT_LENGTH = 13;
+
+    private static final TimeOrderedIdGenerator SHARED =
+            new TimeOrderedIdGenerator(Long.getLong("smartbank.node.id", 0L));
+
+    private final long nodeId;
+    // Packed (millis << SEQUENCE_BITS | next free sequence); threads lease LEASE_SIZE sequences per CAS
+    private final AtomicLong clock = new AtomicLong();
+    private final ThreadLocal<long[]> lease = ThreadLocal.withInitial(() -> new long[2]);
+
+    public TimeOrderedIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public static TimeOrderedIdGenerator shared() {
+        return SHARED;
+    }
+
+    @Override
+    public long nextId() {
+        long[] range = lease.get();
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (range[0] >= range[1] || (range[0] >>> SEQUENCE_BITS) < now) {
+            leaseRange(range, now);
+        }
+        long stamp = range[0]++;
+        return (stamp >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                | nodeId << SEQUENCE_BITS
+                | (stamp & SEQUENCE_MASK);
+    }
+
+    // A full millisecond borrows the next one, so IDs stay unique under bursts and clock steps backwards
+    private void leaseRange(long[] range, long now) {
+        while (true) {
+            long current = clock.get();
+            long millis = current >>> SEQUENCE_BITS;
+            long sequence = current & SEQUENCE_MASK;
+            long start;
+            if (now > millis) {
+                start = now << SEQUENCE_BITS;
+            } else if (sequence + LEASE_SIZE <= SEQUENCE_MASK + 1) {
+                start = current;
+            } else {
+                start = (millis + 1) << SEQUENCE_BITS;
+            }
+            if (clock.compareAndSet(current, start + LEASE_SIZE)) {
+                range[0] = start;
+                range[1] = start + LEASE_SIZE;
+                return;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    // Fixed-width Crockford base32, so the string form sorts the same way as the numeric id
+    public static String toCompactString(long id) {
+        char[] chars = new char[COMPACT_LENGTH];
+        for (int i = COMPACT_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}